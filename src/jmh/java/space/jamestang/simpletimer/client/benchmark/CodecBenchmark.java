@@ -0,0 +1,68 @@
+package space.jamestang.simpletimer.client.benchmark;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.openjdk.jmh.annotations.*;
+import space.jamestang.simpletimer.client.network.Message;
+import space.jamestang.simpletimer.client.network.MessageDecoder;
+import space.jamestang.simpletimer.client.network.MessageEncoder;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes and decodes a schedule frame across payload sizes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CodecBenchmark {
+
+    @Param({"16", "256", "4096", "65536"})
+    int payloadSize;
+
+    @Param({"false", "true"})
+    boolean zeroCopy;
+
+    private final ByteBufAllocator alloc = PooledByteBufAllocator.DEFAULT;
+    private Message message;
+    private ByteBuf frame;
+    private EmbeddedChannel decoder;
+
+    @Setup
+    public void setup() {
+        byte[] payload = new byte[payloadSize];
+        Arrays.fill(payload, (byte) 'x');
+        message = Message.createSchedule("benchmark-topic", 5000, payload);
+        // 解码器接收的是去掉长度前缀的帧
+        ByteBuf encoded = MessageEncoder.encodeFrame(alloc, message);
+        frame = alloc.directBuffer(encoded.readableBytes() - 4).writeBytes(encoded, 4, encoded.readableBytes() - 4);
+        encoded.release();
+        decoder = new EmbeddedChannel(new MessageDecoder(zeroCopy));
+    }
+
+    @TearDown
+    public void tearDown() {
+        frame.release();
+        decoder.finishAndReleaseAll();
+    }
+
+    @Benchmark
+    public int encode() {
+        ByteBuf encoded = MessageEncoder.encodeFrame(alloc, message);
+        int length = encoded.readableBytes();
+        encoded.release();
+        return length;
+    }
+
+    @Benchmark
+    public int decode() {
+        decoder.writeInbound(frame.retainedDuplicate());
+        Message decoded = decoder.readInbound();
+        int length = decoded.payloadLength();
+        decoded.release();
+        return length;
+    }
+}
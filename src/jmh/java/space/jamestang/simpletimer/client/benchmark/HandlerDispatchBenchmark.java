@@ -0,0 +1,58 @@
+package space.jamestang.simpletimer.client.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import space.jamestang.simpletimer.client.handler.TaskDispatcher;
+import space.jamestang.simpletimer.client.handler.TaskHandlerPoll;
+import space.jamestang.simpletimer.client.network.Message;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolves and runs the handler of a triggered task, directly and through the {@link TaskDispatcher}
+ * running handlers inline, and through a wildcard pattern.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HandlerDispatchBenchmark {
+
+    @Param({"10", "10000"})
+    int topics;
+
+    private final TaskHandlerPoll handlers = new TaskHandlerPoll();
+    private Message message;
+    private Message wildcardMessage;
+    private TaskDispatcher dispatcher;
+
+    @Setup
+    public void setup(Blackhole blackhole) {
+        for (int i = 0; i < topics; i++) {
+            handlers.registerHandler("topic-" + i, blackhole::consume);
+        }
+        handlers.registerHandler("order.*.created", blackhole::consume);
+        message = Message.createSchedule("topic-" + (topics / 2), 5000, new byte[64]);
+        wildcardMessage = Message.createSchedule("order.eu.created", 5000, new byte[64]);
+        dispatcher = new TaskDispatcher(handlers, Runnable::run, false, 0);
+    }
+
+    @TearDown
+    public void tearDown() {
+        dispatcher.shutdown();
+    }
+
+    @Benchmark
+    public void handle() {
+        handlers.handle(message);
+    }
+
+    @Benchmark
+    public void handleWildcard() {
+        handlers.handle(wildcardMessage);
+    }
+
+    @Benchmark
+    public void dispatch() {
+        dispatcher.dispatch(message);
+    }
+}
@@ -0,0 +1,30 @@
+package space.jamestang.simpletimer.client.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import space.jamestang.simpletimer.client.network.Message;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link Message#toString()}, which debug logging on the hot path pays per message.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MessageToStringBenchmark {
+
+    @Param({"16", "4096"})
+    int payloadSize;
+
+    private Message message;
+
+    @Setup
+    public void setup() {
+        message = Message.createSchedule("benchmark-topic", 5000, new byte[payloadSize]);
+    }
+
+    @Benchmark
+    public String toStringMessage() {
+        return message.toString();
+    }
+}
@@ -0,0 +1,113 @@
+package space.jamestang.simpletimer.client.benchmark;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.MultiThreadIoEventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalIoHandler;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.util.HashedWheelTimer;
+import org.openjdk.jmh.annotations.*;
+import space.jamestang.simpletimer.client.STClientConfig;
+import space.jamestang.simpletimer.client.handler.TaskDispatcher;
+import space.jamestang.simpletimer.client.handler.TaskHandlerPoll;
+import space.jamestang.simpletimer.client.metrics.STClientMetrics;
+import space.jamestang.simpletimer.client.network.Message;
+import space.jamestang.simpletimer.client.network.MessageDecoder;
+import space.jamestang.simpletimer.client.network.MessageEncoder;
+import space.jamestang.simpletimer.client.network.MessageType;
+import space.jamestang.simpletimer.client.network.PendingAckTable;
+import space.jamestang.simpletimer.client.network.STClientChannelInitializer;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Full schedule to trigger round trip through the client pipeline over an in-JVM {@link LocalChannel}.
+ * The echo server acknowledges each task and triggers it right away, ignoring the delay.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RoundTripBenchmark {
+    private static final String TOPIC = "round-trip";
+
+    private EventLoopGroup group;
+    private Channel server;
+    private Channel client;
+    private TaskDispatcher dispatcher;
+    private HashedWheelTimer timer;
+    private final AtomicReference<CompletableFuture<Void>> pending = new AtomicReference<>();
+
+    @Setup
+    public void setup() throws InterruptedException {
+        group = new MultiThreadIoEventLoopGroup(2, LocalIoHandler.newFactory());
+        LocalAddress address = new LocalAddress("st-round-trip");
+
+        server = new ServerBootstrap()
+                .group(group)
+                .channel(LocalServerChannel.class)
+                .childHandler(new ChannelInitializer<LocalChannel>() {
+                    @Override
+                    protected void initChannel(LocalChannel ch) {
+                        ch.pipeline().addLast(
+                                new LengthFieldBasedFrameDecoder(1024 * 1024, 0, 4, 0, 4),
+                                new MessageDecoder(),
+                                new MessageEncoder(),
+                                new EchoTriggerHandler());
+                    }
+                })
+                .bind(address).sync().channel();
+
+        TaskHandlerPoll handlers = new TaskHandlerPoll();
+        handlers.registerHandler(TOPIC, msg -> pending.get().complete(null));
+        dispatcher = new TaskDispatcher(handlers, Runnable::run, false, 0);
+        STClientConfig config = STClientConfig.builder("localhost", 1).build();
+        timer = new HashedWheelTimer();
+        var ackTable = new PendingAckTable(timer, config.getAckTimeout());
+
+        client = new Bootstrap()
+                .group(group)
+                .channel(LocalChannel.class)
+                .handler(new STClientChannelInitializer(config, dispatcher, ackTable, (ch, writable) -> { }, new STClientMetrics()))
+                .connect(address).sync().channel();
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        client.close().sync();
+        server.close().sync();
+        group.shutdownGracefully(0, 1, TimeUnit.SECONDS).sync();
+        dispatcher.shutdown();
+        timer.stop();
+    }
+
+    @Benchmark
+    public void scheduleToTrigger() throws Exception {
+        var triggered = new CompletableFuture<Void>();
+        pending.set(triggered);
+        client.writeAndFlush(Message.createSchedule(TOPIC, 1000, new byte[64]));
+        triggered.get(5, TimeUnit.SECONDS);
+    }
+
+    private static final class EchoTriggerHandler extends SimpleChannelInboundHandler<Message> {
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, Message msg) {
+            if (msg.type() != MessageType.SCHEDULE_TASK) {
+                return;
+            }
+            ctx.write(new Message(msg.magic(), msg.version(), MessageType.TASK_RECEIVED, msg.topicLength(),
+                    msg.topic(), msg.delay(), msg.payload()));
+            ctx.writeAndFlush(new Message(msg.magic(), msg.version(), MessageType.TASK_TRIGGERED, msg.topicLength(),
+                    msg.topic(), 0, msg.payload()));
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package space.jamestang.simpletimer.client.loadtest;
+
+import space.jamestang.simpletimer.client.STClient;
+import space.jamestang.simpletimer.client.STClientConfig;
+import space.jamestang.simpletimer.client.STClientResources;
+import space.jamestang.simpletimer.client.handler.TaskHandlerPoll;
+import space.jamestang.simpletimer.client.metrics.HistogramSnapshot;
+import space.jamestang.simpletimer.client.metrics.LatencyHistogram;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives N clients at a fixed aggregate rate against a SimpleTimer server, by default an embedded
+ * {@link StubTimerServer} on loopback, and reports throughput, ack latency and trigger lateness.
+ * <p>
+ * Sends are paced open-loop: each client sends on a fixed schedule regardless of how fast acks come back,
+ * so a slow server shows up as latency rather than as a lower offered rate. Each payload carries its send
+ * time and delay, which gives the lateness of its trigger against the requested fire time.
+ * <pre>
+ * LoadGenerator [--clients 4] [--rate 10000] [--duration 10] [--delay 1000] [--payload 64] [--host 127.0.0.1] [--port 0]
+ * </pre>
+ * Rate is tasks per second over all clients, duration in seconds, delay in milliseconds,
+ * payload in bytes (at least 16). Port 0 starts the embedded stub server.
+ */
+public class LoadGenerator {
+    private static final String TOPIC = "st-loadtest";
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder acked = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder triggered = new LongAdder();
+    private final LatencyHistogram ackLatency = new LatencyHistogram();
+    private final LatencyHistogram triggerLateness = new LatencyHistogram();
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        StubTimerServer server = options.port == 0 ? StubTimerServer.start(0) : null;
+        try {
+            int port = server != null ? server.port() : options.port;
+            new LoadGenerator().run(options, options.host, port);
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+
+    private void run(Options options, String host, int port) throws InterruptedException {
+        // 所有客户端共享同一个注册表
+        TaskHandlerPoll handlers = new TaskHandlerPoll();
+        handlers.registerHandler(TOPIC, msg -> {
+            ByteBuffer payload = ByteBuffer.wrap(msg.payload());
+            long dueAt = payload.getLong() + TimeUnit.MILLISECONDS.toNanos(payload.getLong());
+            triggerLateness.record(System.nanoTime() - dueAt);
+            triggered.increment();
+        });
+
+        STClientConfig config = STClientConfig.builder(host, port).handlers(handlers).build();
+        STClientResources resources = STClientResources.builder().build();
+        List<STClient> clients = new ArrayList<>(options.clients);
+        for (int i = 0; i < options.clients; i++) {
+            STClient client = resources.newClient(config);
+            client.start();
+            clients.add(client);
+        }
+        awaitConnected(clients);
+
+        System.out.printf("Running %d client(s) at %d tasks/s for %d s against %s:%d%n",
+                options.clients, options.rate, options.duration, host, port);
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) * options.clients / options.rate;
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(options.duration);
+        List<Thread> senders = new ArrayList<>();
+        for (STClient client : clients) {
+            senders.add(Thread.ofPlatform().name("st-loadtest-sender").start(
+                    () -> send(client, options, intervalNanos, end)));
+        }
+        for (Thread sender : senders) {
+            sender.join();
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        // 等待最后一批任务触发
+        long drainDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(options.delay + 5000);
+        while (triggered.sum() < acked.sum() && System.nanoTime() < drainDeadline) {
+            Thread.sleep(50);
+        }
+        report(elapsedSeconds);
+
+        clients.forEach(STClient::shutdown);
+        resources.release();
+    }
+
+    private void send(STClient client, Options options, long intervalNanos, long end) {
+        long next = System.nanoTime();
+        while (next < end) {
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            ByteBuffer payload = ByteBuffer.allocate(options.payload);
+            payload.putLong(System.nanoTime()).putLong(options.delay);
+            try {
+                sent.increment();
+                client.scheduleAcked(TOPIC, options.delay, payload::array).whenComplete((receipt, e) -> {
+                    if (e == null) {
+                        acked.increment();
+                        ackLatency.record(receipt.ackLatencyNanos());
+                    } else {
+                        failed.increment();
+                    }
+                });
+            } catch (RuntimeException e) {
+                failed.increment();
+            }
+            next += intervalNanos;
+        }
+    }
+
+    private void report(double elapsedSeconds) {
+        System.out.printf("sent=%d acked=%d failed=%d triggered=%d%n", sent.sum(), acked.sum(), failed.sum(), triggered.sum());
+        System.out.printf("throughput: %.0f acked tasks/s%n", acked.sum() / elapsedSeconds);
+        print("ack latency", ackLatency.snapshot());
+        print("trigger lateness", triggerLateness.snapshot());
+    }
+
+    private static void print(String name, HistogramSnapshot snapshot) {
+        System.out.printf("%-17s p50=%.3fms p90=%.3fms p99=%.3fms p99.9=%.3fms max=%.3fms (n=%d)%n", name + ":",
+                millis(snapshot.p50()), millis(snapshot.p90()), millis(snapshot.p99()), millis(snapshot.p999()),
+                millis(snapshot.max()), snapshot.count());
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private static void awaitConnected(List<STClient> clients) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!clients.stream().allMatch(STClient::isConnected)) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("Clients did not connect within 10 seconds");
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private record Options(int clients, int rate, int duration, long delay, int payload, String host, int port) {
+        static Options parse(String[] args) {
+            int clients = 4;
+            int rate = 10000;
+            int duration = 10;
+            long delay = 1000;
+            int payload = 64;
+            String host = "127.0.0.1";
+            int port = 0;
+            for (int i = 0; i + 1 < args.length; i += 2) {
+                String value = args[i + 1];
+                switch (args[i]) {
+                    case "--clients" -> clients = Integer.parseInt(value);
+                    case "--rate" -> rate = Integer.parseInt(value);
+                    case "--duration" -> duration = Integer.parseInt(value);
+                    case "--delay" -> delay = Long.parseLong(value);
+                    case "--payload" -> payload = Integer.parseInt(value);
+                    case "--host" -> host = value;
+                    case "--port" -> port = Integer.parseInt(value);
+                    default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+            }
+            if (clients <= 0 || rate < clients || duration <= 0) {
+                throw new IllegalArgumentException("Clients and duration must be positive and rate at least the number of clients");
+            }
+            if (delay < 1000) {
+                throw new IllegalArgumentException("Delay must be at least 1000 milliseconds");
+            }
+            if (payload < 16) {
+                throw new IllegalArgumentException("Payload must be at least 16 bytes");
+            }
+            return new Options(clients, rate, duration, delay, payload, host, port);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package space.jamestang.simpletimer.client.loadtest;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.MultiThreadIoEventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioIoHandler;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import space.jamestang.simpletimer.client.compression.DeflateCodec;
+import space.jamestang.simpletimer.client.network.CompressionHandler;
+import space.jamestang.simpletimer.client.network.Message;
+import space.jamestang.simpletimer.client.network.MessageDecoder;
+import space.jamestang.simpletimer.client.network.MessageEncoder;
+import space.jamestang.simpletimer.client.network.MessageType;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process stand-in for the SimpleTimer server, speaking the v1 frame format on loopback.
+ * <p>
+ * Every SCHEDULE_TASK (and every task of a BATCH_SCHEDULE_TASK) is acknowledged with TASK_RECEIVED
+ * and fired back as TASK_TRIGGERED after its delay. PING is answered with PONG and HELLO with
+ * version 1, so clients configured for protocol v2 stay on v1. Compressed payloads are accepted,
+ * replies are sent uncompressed.
+ */
+public class StubTimerServer implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(StubTimerServer.class);
+    private static final int MAX_FRAME_LENGTH = 1024 * 1024 * 10; // 10 MB
+
+    private final EventLoopGroup group;
+    private final Channel channel;
+
+    private StubTimerServer(EventLoopGroup group, Channel channel) {
+        this.group = group;
+        this.channel = channel;
+    }
+
+    /**
+     * Starts the server on 127.0.0.1.
+     * @param port the port to listen on, 0 for an ephemeral port
+     */
+    public static StubTimerServer start(int port) throws InterruptedException {
+        EventLoopGroup group = new MultiThreadIoEventLoopGroup(NioIoHandler.newFactory());
+        try {
+            Channel channel = new ServerBootstrap()
+                    .group(group)
+                    .channel(NioServerSocketChannel.class)
+                    .childHandler(new ChannelInitializer<SocketChannel>() {
+                        @Override
+                        protected void initChannel(SocketChannel ch) {
+                            ch.pipeline().addLast(
+                                    new LengthFieldBasedFrameDecoder(MAX_FRAME_LENGTH, 0, 4, 0, 4),
+                                    new MessageDecoder(),
+                                    new MessageEncoder(),
+                                    // 只用于解压客户端压缩的payload，回复不压缩
+                                    new CompressionHandler(new DeflateCodec(), Integer.MAX_VALUE, false),
+                                    new StubHandler());
+                        }
+                    })
+                    .bind(new InetSocketAddress("127.0.0.1", port)).sync().channel();
+            StubTimerServer server = new StubTimerServer(group, channel);
+            logger.info("Stub timer server listening on port {}", server.port());
+            return server;
+        } catch (InterruptedException | RuntimeException e) {
+            group.shutdownGracefully();
+            throw e;
+        }
+    }
+
+    public int port() {
+        return ((InetSocketAddress) channel.localAddress()).getPort();
+    }
+
+    @Override
+    public void close() {
+        channel.close().syncUninterruptibly();
+        group.shutdownGracefully(0, 2, TimeUnit.SECONDS).syncUninterruptibly();
+    }
+
+    private static final class StubHandler extends SimpleChannelInboundHandler<Message> {
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, Message msg) {
+            switch (msg.type()) {
+                case MessageType.PING -> ctx.writeAndFlush(reply(MessageType.PONG, msg.topic(), 0, msg.payload()));
+                case MessageType.HELLO -> ctx.writeAndFlush(reply(MessageType.HELLO, "", 0, new byte[]{1}));
+                case MessageType.SCHEDULE_TASK -> {
+                    ctx.writeAndFlush(reply(MessageType.TASK_RECEIVED, msg.topic(), msg.delay(), msg.payload()));
+                    trigger(ctx, msg.topic(), msg.delay(), msg.payload());
+                }
+                case MessageType.BATCH_SCHEDULE_TASK -> scheduleBatch(ctx, msg.payload());
+                default -> logger.warn("Stub server ignoring message type {}", msg.type());
+            }
+        }
+
+        /**
+         * Unpacks a batch, see {@link Message#createBatchSchedule}, acknowledging each task separately
+         */
+        private void scheduleBatch(ChannelHandlerContext ctx, byte[] payload) {
+            ByteBuffer buffer = ByteBuffer.wrap(payload);
+            int count = buffer.getInt();
+            for (int i = 0; i < count; i++) {
+                byte[] topicBytes = new byte[buffer.getInt()];
+                buffer.get(topicBytes);
+                String topic = new String(topicBytes, StandardCharsets.UTF_8);
+                long delay = buffer.getLong();
+                byte[] task = new byte[buffer.getInt()];
+                buffer.get(task);
+                ctx.write(reply(MessageType.TASK_RECEIVED, topic, delay, task));
+                trigger(ctx, topic, delay, task);
+            }
+            ctx.flush();
+        }
+
+        private void trigger(ChannelHandlerContext ctx, String topic, long delay, byte[] payload) {
+            ctx.executor().schedule(() -> {
+                if (ctx.channel().isActive()) {
+                    ctx.writeAndFlush(reply(MessageType.TASK_TRIGGERED, topic, 0, payload));
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+
+        private static Message reply(int type, String topic, long delay, byte[] payload) {
+            int topicLength = topic.getBytes(StandardCharsets.UTF_8).length;
+            return new Message(0x7355608, 1, type, topicLength, topic, delay, payload);
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            logger.warn("Stub server closing connection: {}", cause.getMessage());
+            ctx.close();
+        }
+    }
+
+    /**
+     * Runs the stub server standalone until the process is stopped.
+     * Usage: {@code StubTimerServer [port]}, the default port is 8080.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        StubTimerServer server = start(port);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        server.channel.closeFuture().sync();
+    }
+}
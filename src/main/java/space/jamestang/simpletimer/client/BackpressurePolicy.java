@@ -0,0 +1,16 @@
+package space.jamestang.simpletimer.client;
+
+/**
+ * What {@link STClient#scheduleAsync} does when no pooled connection is writable, i.e. every channel's
+ * outbound buffer is above the configured high watermark.
+ */
+public enum BackpressurePolicy {
+    /** Writes anyway and lets the outbound buffer grow. */
+    NONE,
+    /** Fails the task with a {@link java.util.concurrent.RejectedExecutionException}. */
+    FAIL_FAST,
+    /** Blocks the caller until a channel becomes writable or the backpressure timeout expires. On an event loop thread it behaves like {@link #AWAIT}. */
+    BLOCK,
+    /** Returns at once and writes the task when a channel becomes writable, failing it once the backpressure timeout expires. */
+    AWAIT
+}
@@ -0,0 +1,15 @@
+package space.jamestang.simpletimer.client;
+
+import io.netty.channel.ChannelFuture;
+
+import java.util.List;
+
+/**
+ * Result of {@link STClient#scheduleBatch(java.util.Collection)} and {@link ShardedSTClient#scheduleBatch(java.util.Collection)}.
+ * @param future completes once the batch frame has been written; fails if no task of the batch was valid
+ * @param results one future per request, in the order of the input collection.
+ *                Invalid requests are failed immediately, the others follow {@code future}
+ * @param acceptedCount the number of requests that were packed into the batch frame
+ */
+public record BatchScheduleResult(ChannelFuture future, List<ChannelFuture> results, int acceptedCount) {
+}
@@ -1,13 +1,55 @@
 package space.jamestang.simpletimer.client;
 
+import space.jamestang.simpletimer.client.compression.CompressionCodec;
+import space.jamestang.simpletimer.client.compression.DeflateCodec;
+import space.jamestang.simpletimer.client.handler.TaskHandlerPoll;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
 public class Builder {
     final String host;
     final int port;
+    List<Endpoint> replicas = List.of();
     int maxReconnectAttempts = 10;
     long initialReconnectDelay = 1000; // 1秒
     long maxReconnectDelay = 60000; // 60秒
+    long stableConnectionTime = 30000; // 30秒
     long heartbeatInterval = 20; // 20秒
+    long heartbeatTimeout = 0; // 0 表示心跳间隔的 3 倍
     boolean autoReconnect = true;
+    boolean writeCoalescing = false;
+    int writeCoalescingMaxBatch = 128;
+    long writeCoalescingDelayMicros = 0;
+    Transport transport = Transport.AUTO;
+    boolean tcpQuickAck = false;
+    int connectionPoolSize = 1;
+    LoadBalanceStrategy loadBalanceStrategy = LoadBalanceStrategy.ROUND_ROBIN;
+    Executor handlerExecutor = null; // 默认每个任务一个虚拟线程
+    TaskHandlerPoll handlers = new TaskHandlerPoll();
+    boolean orderedHandlerExecution = false;
+    int maxConcurrencyPerTopic = 0;
+    int publisherBufferSize = 1024;
+    boolean zeroCopyDecoding = false;
+    int protocolVersion = 1;
+    long protocolNegotiationTimeout = 3000; // 3秒
+    long ackTimeout = 10000; // 10秒
+    int outboundBufferSize = 0; // 0 表示不缓存
+    OverflowPolicy outboundBufferOverflowPolicy = OverflowPolicy.REJECT;
+    long outboundBufferBlockTimeout = 5000; // 5秒
+    Path journalDirectory = null; // null 表示不写日志
+    int journalSegmentSize = 64 * 1024 * 1024; // 64MB
+    long journalGroupCommitMicros = 1000;
+    int writeBufferLowWaterMark = 32 * 1024; // 32KB
+    int writeBufferHighWaterMark = 64 * 1024; // 64KB
+    BackpressurePolicy backpressurePolicy = BackpressurePolicy.NONE;
+    long backpressureTimeout = 5000; // 5秒
+    boolean compression = false;
+    int compressionThreshold = 1024; // 1KB
+    Supplier<CompressionCodec> compressionCodec = DeflateCodec::new;
 
     Builder(String host, int port) {
         if (host == null || host.trim().isEmpty()) {
@@ -20,6 +62,38 @@ public class Builder {
         this.port = port;
     }
 
+    /**
+     * Replica servers besides the primary host and port. New connections go to the endpoint with the lowest
+     * heartbeat RTT and error rate, and a lost connection that had been stable moves to another replica
+     * right away instead of waiting for the reconnect backoff, see {@link #stableConnectionTime}.
+     */
+    public Builder replicas(List<Endpoint> replicas) {
+        if (replicas == null) {
+            throw new IllegalArgumentException("Replicas cannot be null");
+        }
+        Endpoint primary = new Endpoint(host, port);
+        for (Endpoint replica : replicas) {
+            if (replica == null) {
+                throw new IllegalArgumentException("Replica cannot be null");
+            }
+            if (replica.equals(primary)) {
+                throw new IllegalArgumentException("Replica duplicates the primary endpoint: " + replica);
+            }
+        }
+        if (replicas.stream().distinct().count() != replicas.size()) {
+            throw new IllegalArgumentException("Replicas must be distinct");
+        }
+        this.replicas = List.copyOf(replicas);
+        return this;
+    }
+
+    public Builder replicas(Endpoint... replicas) {
+        if (replicas == null) {
+            throw new IllegalArgumentException("Replicas cannot be null");
+        }
+        return replicas(Arrays.asList(replicas));
+    }
+
     public Builder maxReconnectAttempts(int maxReconnectAttempts) {
         if (maxReconnectAttempts < 0) {
             throw new IllegalArgumentException("Max reconnect attempts cannot be negative");
@@ -44,6 +118,19 @@ public class Builder {
         return this;
     }
 
+    /**
+     * Time in milliseconds a connection must stay up before the reconnect backoff starts over. A connection
+     * lost earlier raises the backoff like a failed attempt and, with replicas, fails over only after it,
+     * so a server that accepts and then drops connections is not hammered in a tight loop.
+     */
+    public Builder stableConnectionTime(long stableConnectionTime) {
+        if (stableConnectionTime < 0) {
+            throw new IllegalArgumentException("Stable connection time cannot be negative");
+        }
+        this.stableConnectionTime = stableConnectionTime;
+        return this;
+    }
+
     public Builder heartbeatInterval(long heartbeatInterval) {
         if (heartbeatInterval <= 0) {
             throw new IllegalArgumentException("Heartbeat interval must be positive");
@@ -52,15 +139,342 @@ public class Builder {
         return this;
     }
 
+    /**
+     * Time in seconds without reading anything from the server after which the connection is closed and
+     * reconnected, 0 for three heartbeat intervals. Must be longer than the heartbeat interval.
+     */
+    public Builder heartbeatTimeout(long heartbeatTimeout) {
+        if (heartbeatTimeout < 0) {
+            throw new IllegalArgumentException("Heartbeat timeout cannot be negative");
+        }
+        this.heartbeatTimeout = heartbeatTimeout;
+        return this;
+    }
+
     public Builder autoReconnect(boolean autoReconnect) {
         this.autoReconnect = autoReconnect;
         return this;
     }
 
+    /**
+     * Enables coalescing of schedule writes issued from many threads into batched flushes
+     * on the event loop.
+     */
+    public Builder writeCoalescing(boolean writeCoalescing) {
+        this.writeCoalescing = writeCoalescing;
+        return this;
+    }
+
+    /**
+     * Max number of writes flushed together when write coalescing is enabled.
+     * Larger values favour throughput, smaller ones latency.
+     */
+    public Builder writeCoalescingMaxBatch(int writeCoalescingMaxBatch) {
+        if (writeCoalescingMaxBatch <= 0) {
+            throw new IllegalArgumentException("Write coalescing max batch must be positive");
+        }
+        this.writeCoalescingMaxBatch = writeCoalescingMaxBatch;
+        return this;
+    }
+
+    /**
+     * Time in microseconds a coalesced flush waits for more writes, 0 flushes on the next event loop tick.
+     */
+    public Builder writeCoalescingDelayMicros(long writeCoalescingDelayMicros) {
+        if (writeCoalescingDelayMicros < 0) {
+            throw new IllegalArgumentException("Write coalescing delay cannot be negative");
+        }
+        this.writeCoalescingDelayMicros = writeCoalescingDelayMicros;
+        return this;
+    }
+
+    /**
+     * Selects the network transport, unavailable native transports fall back to NIO.
+     */
+    public Builder transport(Transport transport) {
+        if (transport == null) {
+            throw new IllegalArgumentException("Transport cannot be null");
+        }
+        this.transport = transport;
+        return this;
+    }
+
+    /**
+     * Enables TCP_QUICKACK, only honoured by the EPOLL and IO_URING transports.
+     */
+    public Builder tcpQuickAck(boolean tcpQuickAck) {
+        this.tcpQuickAck = tcpQuickAck;
+        return this;
+    }
+
+    /**
+     * Number of connections opened to the server, spread over the client's event loops.
+     */
+    public Builder connectionPoolSize(int connectionPoolSize) {
+        if (connectionPoolSize <= 0) {
+            throw new IllegalArgumentException("Connection pool size must be positive");
+        }
+        this.connectionPoolSize = connectionPoolSize;
+        return this;
+    }
+
+    /**
+     * How a pooled connection is picked for each send.
+     */
+    public Builder loadBalanceStrategy(LoadBalanceStrategy loadBalanceStrategy) {
+        if (loadBalanceStrategy == null) {
+            throw new IllegalArgumentException("Load balance strategy cannot be null");
+        }
+        this.loadBalanceStrategy = loadBalanceStrategy;
+        return this;
+    }
+
+    /**
+     * Executor running triggered task handlers, by default a virtual thread per task.
+     * Pass {@code Runnable::run} to run handlers directly on the I/O thread.
+     */
+    public Builder handlerExecutor(Executor handlerExecutor) {
+        if (handlerExecutor == null) {
+            throw new IllegalArgumentException("Handler executor cannot be null");
+        }
+        this.handlerExecutor = handlerExecutor;
+        return this;
+    }
+
+    /**
+     * Registry holding the handlers of this client's triggered tasks, by default an empty registry of its own
+     * reachable through {@link STClient#handlers()}. Pass {@link TaskHandlerPoll#INSTANCE} or any other shared
+     * registry to let several clients handle the same topics.
+     */
+    public Builder handlers(TaskHandlerPoll handlers) {
+        if (handlers == null) {
+            throw new IllegalArgumentException("Handler registry cannot be null");
+        }
+        this.handlers = handlers;
+        return this;
+    }
+
+    /**
+     * Handles the triggered tasks of one topic one after another, in arrival order.
+     */
+    public Builder orderedHandlerExecution(boolean orderedHandlerExecution) {
+        this.orderedHandlerExecution = orderedHandlerExecution;
+        return this;
+    }
+
+    /**
+     * Max handlers of one topic running at once, 0 for no limit. Ignored in ordered mode.
+     */
+    public Builder maxConcurrencyPerTopic(int maxConcurrencyPerTopic) {
+        if (maxConcurrencyPerTopic < 0) {
+            throw new IllegalArgumentException("Max concurrency per topic cannot be negative");
+        }
+        this.maxConcurrencyPerTopic = maxConcurrencyPerTopic;
+        return this;
+    }
+
+    /**
+     * Messages a topic publisher buffers for its subscriber before reads from the server are paused.
+     */
+    public Builder publisherBufferSize(int publisherBufferSize) {
+        if (publisherBufferSize < 2) {
+            throw new IllegalArgumentException("Publisher buffer size must be at least 2");
+        }
+        this.publisherBufferSize = publisherBufferSize;
+        return this;
+    }
+
+    /**
+     * Keeps inbound payloads as retained slices of the received frame instead of copying them
+     * into byte arrays. See {@link space.jamestang.simpletimer.client.network.Message} for the release rules.
+     */
+    public Builder zeroCopyDecoding(boolean zeroCopyDecoding) {
+        this.zeroCopyDecoding = zeroCopyDecoding;
+        return this;
+    }
+
+    /**
+     * Highest protocol version offered to the server. Version 2 uses per-connection topic IDs and
+     * varint headers and is only used if the server accepts it, otherwise the connection stays on version 1.
+     */
+    public Builder protocolVersion(int protocolVersion) {
+        if (protocolVersion != 1 && protocolVersion != 2) {
+            throw new IllegalArgumentException("Protocol version must be 1 or 2");
+        }
+        this.protocolVersion = protocolVersion;
+        return this;
+    }
+
+    /**
+     * Time in milliseconds to wait for the server's reply to protocol negotiation before settling on version 1.
+     */
+    public Builder protocolNegotiationTimeout(long protocolNegotiationTimeout) {
+        if (protocolNegotiationTimeout <= 0) {
+            throw new IllegalArgumentException("Protocol negotiation timeout must be positive");
+        }
+        this.protocolNegotiationTimeout = protocolNegotiationTimeout;
+        return this;
+    }
+
+    /**
+     * Time in milliseconds {@link STClient#scheduleAcked} waits for the server's acknowledgment.
+     */
+    public Builder ackTimeout(long ackTimeout) {
+        if (ackTimeout <= 0) {
+            throw new IllegalArgumentException("Ack timeout must be positive");
+        }
+        this.ackTimeout = ackTimeout;
+        return this;
+    }
+
+    /**
+     * Off-heap byte budget for tasks scheduled while disconnected, 0 disables buffering
+     * and makes scheduling fail immediately when no connection is available.
+     */
+    public Builder outboundBufferSize(int outboundBufferSize) {
+        if (outboundBufferSize < 0) {
+            throw new IllegalArgumentException("Outbound buffer size cannot be negative");
+        }
+        this.outboundBufferSize = outboundBufferSize;
+        return this;
+    }
+
+    /**
+     * What happens to a task that does not fit into the outbound buffer.
+     */
+    public Builder outboundBufferOverflowPolicy(OverflowPolicy outboundBufferOverflowPolicy) {
+        if (outboundBufferOverflowPolicy == null) {
+            throw new IllegalArgumentException("Overflow policy cannot be null");
+        }
+        this.outboundBufferOverflowPolicy = outboundBufferOverflowPolicy;
+        return this;
+    }
+
+    /**
+     * Max time in milliseconds a caller blocks under {@link OverflowPolicy#BLOCK}.
+     */
+    public Builder outboundBufferBlockTimeout(long outboundBufferBlockTimeout) {
+        if (outboundBufferBlockTimeout < 0) {
+            throw new IllegalArgumentException("Outbound buffer block timeout cannot be negative");
+        }
+        this.outboundBufferBlockTimeout = outboundBufferBlockTimeout;
+        return this;
+    }
+
+    /**
+     * Directory of the write-ahead journal. When set, every single scheduled task is appended to a
+     * memory-mapped journal and forced to disk before it is sent, and tasks the server has not acknowledged
+     * are resent on the next {@link STClient#start()}. Tasks whose write fails or whose acknowledgment times
+     * out are resent while running. Batches from {@code scheduleBatch} are not journaled.
+     */
+    public Builder journalDirectory(Path journalDirectory) {
+        if (journalDirectory == null) {
+            throw new IllegalArgumentException("Journal directory cannot be null");
+        }
+        this.journalDirectory = journalDirectory;
+        return this;
+    }
+
+    /**
+     * Size in bytes of each journal segment file, a task must fit in a single segment.
+     */
+    public Builder journalSegmentSize(int journalSegmentSize) {
+        if (journalSegmentSize < 4096) {
+            throw new IllegalArgumentException("Journal segment size must be at least 4096 bytes");
+        }
+        this.journalSegmentSize = journalSegmentSize;
+        return this;
+    }
+
+    /**
+     * Time in microseconds the journal waits for more appends before forcing them to disk together.
+     * Larger values mean fewer forces under load at the cost of latency per task.
+     */
+    public Builder journalGroupCommitMicros(long journalGroupCommitMicros) {
+        if (journalGroupCommitMicros < 0) {
+            throw new IllegalArgumentException("Journal group commit delay cannot be negative");
+        }
+        this.journalGroupCommitMicros = journalGroupCommitMicros;
+        return this;
+    }
+
+    /**
+     * Write buffer watermarks in bytes: a connection becomes unwritable once more than {@code high} bytes
+     * wait to be written and writable again below {@code low}.
+     */
+    public Builder writeBufferWaterMark(int low, int high) {
+        if (low < 0 || high <= 0) {
+            throw new IllegalArgumentException("Write buffer watermarks must be positive");
+        }
+        if (low > high) {
+            throw new IllegalArgumentException("Write buffer low watermark cannot be greater than high watermark");
+        }
+        this.writeBufferLowWaterMark = low;
+        this.writeBufferHighWaterMark = high;
+        return this;
+    }
+
+    /**
+     * What scheduling does while no connection is writable.
+     */
+    public Builder backpressurePolicy(BackpressurePolicy backpressurePolicy) {
+        if (backpressurePolicy == null) {
+            throw new IllegalArgumentException("Backpressure policy cannot be null");
+        }
+        this.backpressurePolicy = backpressurePolicy;
+        return this;
+    }
+
+    /**
+     * Max time in milliseconds a task waits for a writable connection under
+     * {@link BackpressurePolicy#BLOCK} or {@link BackpressurePolicy#AWAIT}.
+     */
+    public Builder backpressureTimeout(long backpressureTimeout) {
+        if (backpressureTimeout <= 0) {
+            throw new IllegalArgumentException("Backpressure timeout must be positive");
+        }
+        this.backpressureTimeout = backpressureTimeout;
+        return this;
+    }
+
+    /**
+     * Compresses schedule payloads of at least the compression threshold, the server must understand
+     * the {@code COMPRESSED} type flag. Compressed triggered tasks are decompressed before reaching handlers.
+     */
+    public Builder compression(boolean compression) {
+        this.compression = compression;
+        return this;
+    }
+
+    /**
+     * Min payload size in bytes to compress.
+     */
+    public Builder compressionThreshold(int compressionThreshold) {
+        if (compressionThreshold < 0) {
+            throw new IllegalArgumentException("Compression threshold cannot be negative");
+        }
+        this.compressionThreshold = compressionThreshold;
+        return this;
+    }
+
+    /**
+     * Creates the codec of each connection, {@link DeflateCodec} by default.
+     */
+    public Builder compressionCodec(Supplier<CompressionCodec> compressionCodec) {
+        if (compressionCodec == null) {
+            throw new IllegalArgumentException("Compression codec cannot be null");
+        }
+        this.compressionCodec = compressionCodec;
+        return this;
+    }
+
     public STClientConfig build() {
         if (initialReconnectDelay > maxReconnectDelay) {
             throw new IllegalArgumentException("Initial reconnect delay cannot be greater than max reconnect delay");
         }
+        if (heartbeatTimeout != 0 && heartbeatTimeout <= heartbeatInterval) {
+            throw new IllegalArgumentException("Heartbeat timeout must be greater than heartbeat interval");
+        }
         return new STClientConfig(this);
     }
 }
\ No newline at end of file
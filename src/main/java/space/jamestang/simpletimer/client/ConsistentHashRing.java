@@ -0,0 +1,89 @@
+package space.jamestang.simpletimer.client;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable consistent-hash ring placing each node at a number of virtual points, so keys spread evenly
+ * and adding or removing a node only moves the keys of that node. Changes return a new ring, lookups
+ * are a binary search over a sorted array and need no locking.
+ */
+final class ConsistentHashRing<T> {
+    private final long[] points;
+    private final List<T> owners;
+    private final List<T> nodes;
+    private final int virtualNodes;
+
+    ConsistentHashRing(List<T> nodes, int virtualNodes) {
+        this.nodes = List.copyOf(nodes);
+        this.virtualNodes = virtualNodes;
+
+        long[][] entries = new long[this.nodes.size() * virtualNodes][];
+        int n = 0;
+        for (int i = 0; i < this.nodes.size(); i++) {
+            String name = this.nodes.get(i).toString();
+            for (int v = 0; v < virtualNodes; v++) {
+                entries[n++] = new long[]{hash(name + "#" + v), i};
+            }
+        }
+        Arrays.sort(entries, (a, b) -> Long.compare(a[0], b[0]));
+
+        this.points = new long[entries.length];
+        List<T> pointOwners = new ArrayList<>(entries.length);
+        for (int i = 0; i < entries.length; i++) {
+            points[i] = entries[i][0];
+            pointOwners.add(this.nodes.get((int) entries[i][1]));
+        }
+        this.owners = pointOwners;
+    }
+
+    /**
+     * @return the node owning {@code key}, or null if the ring is empty
+     */
+    T route(String key) {
+        if (points.length == 0) {
+            return null;
+        }
+        int index = Arrays.binarySearch(points, hash(key));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        // 超过最后一个点时回绕到环首
+        return owners.get(index == points.length ? 0 : index);
+    }
+
+    List<T> nodes() {
+        return nodes;
+    }
+
+    ConsistentHashRing<T> with(T node) {
+        List<T> next = new ArrayList<>(nodes);
+        next.add(node);
+        return new ConsistentHashRing<>(next, virtualNodes);
+    }
+
+    ConsistentHashRing<T> without(T node) {
+        List<T> next = new ArrayList<>(nodes);
+        next.remove(node);
+        return new ConsistentHashRing<>(next, virtualNodes);
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-8 bytes, finished with the MurmurHash3 mixer to spread similar keys.
+     */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
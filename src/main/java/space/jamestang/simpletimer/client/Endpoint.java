@@ -0,0 +1,39 @@
+package space.jamestang.simpletimer.client;
+
+/**
+ * Address of a SimpleTimer server.
+ */
+public record Endpoint(String host, int port) {
+
+    public Endpoint {
+        if (host == null || host.trim().isEmpty()) {
+            throw new IllegalArgumentException("Host cannot be null or empty");
+        }
+        if (port <= 0 || port > 65535) {
+            throw new IllegalArgumentException("Port must be between 1 and 65535");
+        }
+    }
+
+    /**
+     * Parses {@code host:port}.
+     */
+    public static Endpoint parse(String address) {
+        if (address == null) {
+            throw new IllegalArgumentException("Address cannot be null");
+        }
+        int colon = address.lastIndexOf(':');
+        if (colon <= 0 || colon == address.length() - 1) {
+            throw new IllegalArgumentException("Address must be host:port, got: " + address);
+        }
+        try {
+            return new Endpoint(address.substring(0, colon), Integer.parseInt(address.substring(colon + 1)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid port in address: " + address, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return host + ":" + port;
+    }
+}
@@ -0,0 +1,90 @@
+package space.jamestang.simpletimer.client;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Health of one replica endpoint, fed by connection attempts and heartbeats of every pooled connection.
+ * <p>
+ * The round trip time is an exponentially weighted moving average of the heartbeat RTTs, the error rate
+ * a moving average of failed (1) and successful (0) outcomes that also decays over time, so an endpoint
+ * that failed a while ago becomes eligible again once nothing is heard from it. Lower scores are healthier.
+ */
+class EndpointHealth {
+    private static final double ALPHA = 0.3;
+    // 尚未测得 RTT 的端点按 100ms 计
+    private static final long UNMEASURED_RTT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final double ERROR_WEIGHT = 10.0;
+    private static final long ERROR_DECAY_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    private final Endpoint endpoint;
+    private final int order;
+
+    private double rttNanos = -1;
+    private double errorRate;
+    private long errorUpdatedAt = System.nanoTime();
+
+    EndpointHealth(Endpoint endpoint, int order) {
+        this.endpoint = endpoint;
+        this.order = order;
+    }
+
+    Endpoint endpoint() {
+        return endpoint;
+    }
+
+    synchronized void rtt(long nanos) {
+        rttNanos = rttNanos < 0 ? nanos : rttNanos + ALPHA * (nanos - rttNanos);
+        outcome(0);
+    }
+
+    synchronized void success() {
+        outcome(0);
+    }
+
+    synchronized void failure() {
+        outcome(1);
+    }
+
+    private void outcome(double value) {
+        long now = System.nanoTime();
+        double current = decayed(now);
+        errorRate = current + ALPHA * (value - current);
+        errorUpdatedAt = now;
+    }
+
+    private double decayed(long now) {
+        return errorRate * Math.exp(-(double) (now - errorUpdatedAt) / ERROR_DECAY_NANOS);
+    }
+
+    synchronized double errorRate() {
+        return decayed(System.nanoTime());
+    }
+
+    /**
+     * @return the average heartbeat RTT in nanoseconds, or -1 if none was measured yet
+     */
+    synchronized long rttNanos() {
+        return (long) rttNanos;
+    }
+
+    synchronized double score() {
+        double rtt = rttNanos < 0 ? UNMEASURED_RTT_NANOS : rttNanos;
+        return rtt * (1 + ERROR_WEIGHT * decayed(System.nanoTime()));
+    }
+
+    /**
+     * Healthier endpoints first, ties go to the endpoint configured first.
+     */
+    boolean healthierThan(EndpointHealth other) {
+        double score = score();
+        double otherScore = other.score();
+        return score < otherScore || (score == otherScore && order < other.order);
+    }
+
+    @Override
+    public String toString() {
+        long rtt = rttNanos();
+        return String.format("%s(rtt=%s, errors=%.2f)", endpoint,
+                rtt < 0 ? "n/a" : String.format("%.2fms", rtt / 1e6), errorRate());
+    }
+}
@@ -0,0 +1,11 @@
+package space.jamestang.simpletimer.client;
+
+/**
+ * How STClient picks a pooled connection for each send.
+ */
+public enum LoadBalanceStrategy {
+    /** Cycles through the connected members of the pool. */
+    ROUND_ROBIN,
+    /** Picks the connected member with the fewest bytes waiting in its outbound buffer. */
+    LEAST_PENDING_WRITES
+}
@@ -0,0 +1,240 @@
+package space.jamestang.simpletimer.client;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.util.concurrent.Promise;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import space.jamestang.simpletimer.client.network.PendingAckTable;
+import space.jamestang.simpletimer.client.network.ScheduleAckTracker;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Holds pre-encoded schedule frames while no connection is available.
+ * <p>
+ * Frames are stored back to back in a fixed-size off-heap ring, so the byte budget is respected
+ * exactly and buffered tasks do not add heap pressure; only a small bookkeeping entry per frame
+ * lives on the heap. The buffer is drained in batches once a connection is established.
+ */
+class OutboundBuffer {
+    private static final Logger logger = LoggerFactory.getLogger(OutboundBuffer.class);
+    private static final int DRAIN_BATCH = 64;
+
+    private final ByteBuffer ring;
+    private final int capacity;
+    private final OverflowPolicy overflowPolicy;
+    private final long blockTimeoutMillis;
+    private final PendingAckTable ackTable;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final ArrayDeque<Entry> entries = new ArrayDeque<>();
+    private int readPos;
+    private int writePos;
+    private int used;
+
+    OutboundBuffer(int capacity, OverflowPolicy overflowPolicy, long blockTimeoutMillis, PendingAckTable ackTable) {
+        this.ring = ByteBuffer.allocateDirect(capacity);
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeoutMillis = blockTimeoutMillis;
+        this.ackTable = ackTable;
+    }
+
+    /**
+     * Copies an encoded frame into the buffer, the frame itself is released.
+     * @param frame the complete frame, length prefix included
+     * @param requestId the correlation ID of the task, 0 if untracked
+     * @param promise completed once the frame has been written after reconnecting
+     * @param mayBlock whether the calling thread may block under {@link OverflowPolicy#BLOCK}
+     */
+    void offer(ByteBuf frame, long requestId, Promise<Void> promise, boolean mayBlock) {
+        int length = frame.readableBytes();
+        try {
+            if (length > capacity) {
+                promise.tryFailure(new IllegalStateException("Task of " + length
+                        + " bytes exceeds outbound buffer capacity of " + capacity + " bytes"));
+                return;
+            }
+
+            List<Entry> dropped = new ArrayList<>();
+            lock.lock();
+            try {
+                if (!makeRoom(length, dropped, mayBlock)) {
+                    promise.tryFailure(new IllegalStateException(
+                            "Client is not connected and the outbound buffer is full"));
+                    return;
+                }
+                put(frame);
+                entries.add(new Entry(length, requestId, promise));
+            } finally {
+                lock.unlock();
+                for (Entry entry : dropped) {
+                    fail(entry, new IllegalStateException("Task dropped from full outbound buffer"));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            promise.tryFailure(e);
+        } finally {
+            frame.release();
+        }
+    }
+
+    private boolean makeRoom(int length, List<Entry> dropped, boolean mayBlock) throws InterruptedException {
+        if (capacity - used >= length) {
+            return true;
+        }
+        switch (overflowPolicy) {
+            case DROP_OLDEST -> {
+                while (capacity - used < length) {
+                    Entry oldest = entries.poll();
+                    skip(oldest.length);
+                    dropped.add(oldest);
+                }
+                return true;
+            }
+            case BLOCK -> {
+                if (!mayBlock) {
+                    return false;
+                }
+                long remaining = TimeUnit.MILLISECONDS.toNanos(blockTimeoutMillis);
+                while (capacity - used < length) {
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    remaining = notFull.awaitNanos(remaining);
+                }
+                return true;
+            }
+            default -> {
+                return false;
+            }
+        }
+    }
+
+    boolean isEmpty() {
+        lock.lock();
+        try {
+            return entries.isEmpty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes all buffered frames to the channel in batches, one flush per batch.
+     * Must be called on the channel's event loop.
+     */
+    void drainTo(Channel channel) {
+        ScheduleAckTracker tracker = channel.pipeline().get(ScheduleAckTracker.class);
+        int total = 0;
+        while (channel.isActive()) {
+            List<Drained> batch = takeBatch(channel);
+            if (batch.isEmpty()) {
+                break;
+            }
+            for (Drained drained : batch) {
+                if (tracker != null) {
+                    tracker.expect(drained.frame, drained.entry.requestId);
+                }
+                Promise<Void> promise = drained.entry.promise;
+                channel.write(drained.frame).addListener(f -> {
+                    if (f.isSuccess()) {
+                        promise.trySuccess(null);
+                    } else {
+                        promise.tryFailure(f.cause());
+                    }
+                });
+            }
+            channel.flush();
+            total += batch.size();
+        }
+        if (total > 0) {
+            logger.info("Drained {} buffered task(s) after reconnecting", total);
+        }
+    }
+
+    private List<Drained> takeBatch(Channel channel) {
+        List<Drained> batch = new ArrayList<>(DRAIN_BATCH);
+        lock.lock();
+        try {
+            while (batch.size() < DRAIN_BATCH && !entries.isEmpty()) {
+                Entry entry = entries.poll();
+                ByteBuf frame = channel.alloc().directBuffer(entry.length);
+                get(frame, entry.length);
+                batch.add(new Drained(entry, frame));
+            }
+            if (!batch.isEmpty()) {
+                notFull.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+        return batch;
+    }
+
+    /**
+     * Fails every buffered task, used on shutdown.
+     */
+    void failAll(Throwable cause) {
+        List<Entry> failed;
+        lock.lock();
+        try {
+            failed = new ArrayList<>(entries);
+            entries.clear();
+            readPos = writePos = used = 0;
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        for (Entry entry : failed) {
+            fail(entry, cause);
+        }
+    }
+
+    private void fail(Entry entry, Throwable cause) {
+        entry.promise.tryFailure(cause);
+        if (entry.requestId != 0) {
+            ackTable.fail(entry.requestId, cause);
+        }
+    }
+
+    private void put(ByteBuf frame) {
+        int length = frame.readableBytes();
+        int first = Math.min(length, capacity - writePos);
+        frame.getBytes(frame.readerIndex(), ring.slice(writePos, first));
+        if (first < length) {
+            frame.getBytes(frame.readerIndex() + first, ring.slice(0, length - first));
+        }
+        writePos = (writePos + length) % capacity;
+        used += length;
+    }
+
+    private void get(ByteBuf out, int length) {
+        int first = Math.min(length, capacity - readPos);
+        out.writeBytes(ring.slice(readPos, first));
+        if (first < length) {
+            out.writeBytes(ring.slice(0, length - first));
+        }
+        skip(length);
+    }
+
+    private void skip(int length) {
+        readPos = (readPos + length) % capacity;
+        used -= length;
+    }
+
+    private record Entry(int length, long requestId, Promise<Void> promise) {
+    }
+
+    private record Drained(Entry entry, ByteBuf frame) {
+    }
+}
@@ -0,0 +1,13 @@
+package space.jamestang.simpletimer.client;
+
+/**
+ * What the outbound buffer does with a task that does not fit while the client is disconnected.
+ */
+public enum OverflowPolicy {
+    /** Fails the new task. */
+    REJECT,
+    /** Evicts the oldest buffered tasks, failing their futures, to make room for the new one. */
+    DROP_OLDEST,
+    /** Blocks the caller until room is freed or the block timeout expires, then fails the task. */
+    BLOCK
+}
@@ -0,0 +1,20 @@
+package space.jamestang.simpletimer.client;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Serializes values of a type directly into a task's payload buffer, see {@link PayloadWriter}.
+ * @param <T> the type of the values
+ */
+public interface PayloadCodec<T> {
+
+    /**
+     * @return the exact encoded size of {@code value} in bytes
+     */
+    int size(T value);
+
+    /**
+     * Writes exactly {@link #size(Object)} bytes of {@code value}.
+     */
+    void encode(T value, ByteBuf out);
+}
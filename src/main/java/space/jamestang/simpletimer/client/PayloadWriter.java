@@ -0,0 +1,78 @@
+package space.jamestang.simpletimer.client;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Writes a task payload straight into the pooled buffer the task is sent from, instead of handing over
+ * a {@code byte[]} that is copied again. The buffer is allocated with exactly {@link #size()} bytes.
+ */
+public interface PayloadWriter {
+
+    /**
+     * @return the exact number of bytes {@link #write(ByteBuf)} writes, must be positive
+     */
+    int size();
+
+    /**
+     * Writes the payload, exactly {@link #size()} bytes.
+     */
+    void write(ByteBuf out);
+
+    /**
+     * Writes a character sequence as UTF-8 without an intermediate array.
+     */
+    static PayloadWriter of(CharSequence text) {
+        int size = ByteBufUtil.utf8Bytes(text);
+        return new PayloadWriter() {
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public void write(ByteBuf out) {
+                // writeCharSequence 会按最坏情况预留3倍空间，这里只预留精确长度
+                ByteBufUtil.reserveAndWriteUtf8(out, text, size);
+            }
+        };
+    }
+
+    /**
+     * Writes the remaining bytes of a buffer, without changing its position.
+     */
+    static PayloadWriter of(ByteBuffer buffer) {
+        ByteBuffer source = buffer.duplicate();
+        return new PayloadWriter() {
+            @Override
+            public int size() {
+                return source.remaining();
+            }
+
+            @Override
+            public void write(ByteBuf out) {
+                out.writeBytes(source.duplicate());
+            }
+        };
+    }
+
+    /**
+     * Writes a value with its codec.
+     */
+    static <T> PayloadWriter of(T value, PayloadCodec<T> codec) {
+        int size = codec.size(value);
+        return new PayloadWriter() {
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public void write(ByteBuf out) {
+                codec.encode(value, out);
+            }
+        };
+    }
+}
@@ -1,36 +1,68 @@
 package space.jamestang.simpletimer.client;
 
 import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.*;
-import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
+import io.netty.util.concurrent.PromiseNotifier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import io.netty.channel.nio.NioIoHandler;
+import space.jamestang.simpletimer.client.handler.TaskDispatcher;
+import space.jamestang.simpletimer.client.handler.TaskHandlerPoll;
+import space.jamestang.simpletimer.client.jfr.ScheduleEvent;
+import space.jamestang.simpletimer.client.metrics.STClientMetrics;
 import space.jamestang.simpletimer.client.network.Message;
+import space.jamestang.simpletimer.client.network.MessageEncoder;
+import space.jamestang.simpletimer.client.network.PendingAckTable;
 import space.jamestang.simpletimer.client.network.STClientChannelInitializer;
+import space.jamestang.simpletimer.client.network.ScheduleAckTracker;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
-import java.util.concurrent.ScheduledFuture;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Supplier;
 
 public class STClient {
-    private final IoHandlerFactory ioThreadFactory = NioIoHandler.newFactory();
-    private final MultiThreadIoEventLoopGroup eventLoop = new MultiThreadIoEventLoopGroup(ioThreadFactory);
+    private final STClientResources resources;
     private final Bootstrap client = new Bootstrap();
-    private volatile Channel channel;
-    private ScheduledFuture<?> heartbeatTask;
-    private ScheduledFuture<?> reconnectTask;
+    private final List<STConnection> connections;
+    private final List<EndpointHealth> endpoints;
+    private final TaskDispatcher taskDispatcher;
+    private final PendingAckTable ackTable;
+    private final OutboundBuffer outboundBuffer;
+    private final STClientMetrics metrics = new STClientMetrics();
+    private final ScheduleJournal journal;
+    private final ConcurrentLinkedQueue<Replay> pendingReplays = new ConcurrentLinkedQueue<>();
+    private final List<WritabilityListener> writabilityListeners = new CopyOnWriteArrayList<>();
+    private final ConcurrentLinkedQueue<AwaitingWrite> awaitingWritability = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock writabilityLock = new ReentrantLock();
+    private final Condition writable = writabilityLock.newCondition();
+    private final AtomicInteger nextConnection = new AtomicInteger(0);
+    private final AtomicInteger pausedPublishers = new AtomicInteger(0);
     private final Logger logger = LoggerFactory.getLogger(STClient.class);
+    private static final int MAX_JOURNAL_REPLAYS = 5;
     
     // 配置参数
     private final STClientConfig config;
     
     // 连接状态管理
-    private final AtomicBoolean isConnected = new AtomicBoolean(false);
     private final AtomicBoolean isShuttingDown = new AtomicBoolean(false);
-    private final AtomicInteger reconnectAttempts = new AtomicInteger(0);
 
 
     public STClient(String host, int port) {
@@ -38,13 +70,90 @@ public class STClient {
     }
     
     public STClient(STClientConfig config) {
+        this(config, STClientResources.createPrivate(config.getTransport()), true);
+    }
+
+    /**
+     * Creates a client on shared resources, see {@link STClientResources#newClient(STClientConfig)}.
+     */
+    public STClient(STClientConfig config, STClientResources resources) {
+        this(config, resources, false);
+    }
+
+    private STClient(STClientConfig config, STClientResources resources, boolean ownsResources) {
         this.config = config;
-        client.group(eventLoop)
-                .channel(NioSocketChannel.class)
-                .handler(new STClientChannelInitializer())
-                .option(ChannelOption.SO_KEEPALIVE, true);
+        this.resources = resources;
+        // 先持有资源，资源已释放时在启动日志刷盘线程等任何组件前失败
+        resources.retain();
+        ScheduleJournal openedJournal = null;
+        TaskDispatcher dispatcher = null;
+        try {
+            openedJournal = config.getJournalDirectory() != null
+                    ? new ScheduleJournal(config.getJournalDirectory(), config.getJournalSegmentSize(),
+                            config.getJournalGroupCommitMicros())
+                    : null;
+            this.journal = openedJournal;
+            dispatcher = new TaskDispatcher(config.getHandlers(), config.getHandlerExecutor(),
+                    config.isOrderedHandlerExecution(), config.getMaxConcurrencyPerTopic(), metrics);
+            this.taskDispatcher = dispatcher;
+            this.ackTable = new PendingAckTable(resources.timer(), config.getAckTimeout());
+            this.outboundBuffer = config.getOutboundBufferSize() > 0
+                    ? new OutboundBuffer(config.getOutboundBufferSize(), config.getOutboundBufferOverflowPolicy(),
+                            config.getOutboundBufferBlockTimeout(), ackTable)
+                    : null;
+
+            Transport transport = resources.transport();
+            if (!ownsResources && config.getTransport() != Transport.AUTO && config.getTransport() != transport) {
+                logger.warn("Configured transport {} ignored, shared resources use {}", config.getTransport(), transport);
+            }
+            client.group(resources.eventLoop())
+                    .channel(transport.socketChannelClass())
+                    .handler(new STClientChannelInitializer(config, taskDispatcher, ackTable, this::onWritabilityChanged, metrics))
+                    .option(ChannelOption.SO_KEEPALIVE, true)
+                    .option(ChannelOption.WRITE_BUFFER_WATER_MARK,
+                            new WriteBufferWaterMark(config.getWriteBufferLowWaterMark(), config.getWriteBufferHighWaterMark()))
+                    .option(ChannelOption.ALLOCATOR, resources.allocator());
+
+            ChannelOption<Boolean> quickAck = transport.tcpQuickAckOption();
+            if (config.isTcpQuickAck() && quickAck != null) {
+                client.option(quickAck, true);
+            }
+            logger.info("STClient using {} transport", transport);
+
+            List<EndpointHealth> health = new ArrayList<>();
+            for (Endpoint endpoint : config.getEndpoints()) {
+                health.add(new EndpointHealth(endpoint, health.size()));
+            }
+            this.endpoints = List.copyOf(health);
+
+            List<STConnection> pool = new ArrayList<>(config.getConnectionPoolSize());
+            for (int i = 0; i < config.getConnectionPoolSize(); i++) {
+                pool.add(new STConnection(this, i, client, resources.eventLoop(), config));
+            }
+            this.connections = List.copyOf(pool);
+        } catch (RuntimeException | Error e) {
+            // 构造失败时客户端从未注册，资源引用和私有资源只能在这里释放
+            if (openedJournal != null) {
+                openedJournal.close();
+            }
+            if (dispatcher != null) {
+                dispatcher.shutdown();
+            }
+            resources.release();
+            if (ownsResources) {
+                resources.release();
+            }
+            throw e;
+        }
+        // 所有组件创建成功后注册，注册持有的引用取代构造期间的引用
+        resources.register(this);
+        resources.release();
 
-        hookupShutdownHook();
+        if (ownsResources) {
+            // 私有资源只由本客户端持有
+            resources.release();
+            hookupShutdownHook();
+        }
     }
 
     /**
@@ -56,142 +165,760 @@ public class STClient {
             return;
         }
         
-        logger.info("Starting STClient, attempting to connect to {}:{}", config.getHost(), config.getPort());
-        connect();
+        logger.info("Starting STClient, attempting to open {} connection(s) to {}",
+                connections.size(), config.getEndpoints());
+        if (journal != null) {
+            // 上次运行未确认的任务在首个连接建立后重发
+            journal.recovered().forEach(entry -> pendingReplays.add(new Replay(entry, 0, false)));
+        }
+        connections.forEach(STConnection::connect);
     }
-    
+
     /**
-     * Attempts to connect to the server with retry logic
+     * Resends the unacknowledged tasks of the journal on a freshly connected channel, each under a new
+     * request ID so its acknowledgment truncates the journal. These are the tasks recovered on startup
+     * and those whose write failed or whose acknowledgment did not arrive, see {@link #requeue}.
      */
-    private void connect() {
-        if (isShuttingDown.get()) {
+    void replayJournal(Channel channel) {
+        replayJournal(channel, true);
+    }
+
+    /**
+     * @param reconnected whether the channel has just been connected, only then are tasks whose
+     *                    acknowledgment timed out resent
+     */
+    private void replayJournal(Channel channel, boolean reconnected) {
+        if (journal == null || pendingReplays.isEmpty()) {
             return;
         }
-        
-        ChannelFuture connectFuture = client.connect(config.getHost(), config.getPort());
-        connectFuture.addListener((ChannelFuture future) -> {
-            if (future.isSuccess()) {
-                handleConnectionSuccess(future.channel());
+        if (!channel.eventLoop().inEventLoop()) {
+            channel.eventLoop().execute(() -> replayJournal(channel, reconnected));
+            return;
+        }
+
+        ScheduleAckTracker tracker = channel.pipeline().get(ScheduleAckTracker.class);
+        List<Replay> deferred = new ArrayList<>();
+        int replayed = 0;
+        Replay replay;
+        while (channel.isActive() && (replay = pendingReplays.poll()) != null) {
+            if (replay.awaitReconnect() && !reconnected) {
+                deferred.add(replay);
+                continue;
+            }
+            long requestId = ackTable.nextRequestId();
+            settleJournal(ackTable.register(requestId, ""), replay.entry(), replay.attempt());
+            ByteBuf frame = channel.alloc().directBuffer(replay.entry().length()).writeBytes(journal.frame(replay.entry()));
+            tracker.expect(frame, requestId);
+            channel.write(frame).addListener(f -> {
+                if (!f.isSuccess()) {
+                    ackTable.fail(requestId, f.cause());
+                }
+            });
+            replayed++;
+        }
+        pendingReplays.addAll(deferred);
+        if (replayed > 0) {
+            channel.flush();
+            logger.info("Replayed {} unacknowledged task(s) from the journal", replayed);
+        }
+    }
+
+    /**
+     * Truncates the journal once a journaled task is acknowledged, or re-queues it for replay if its write
+     * failed or its acknowledgment timed out, so it does not stay pending until the next restart.
+     * @param attempt the number of replays the task already went through
+     */
+    private void settleJournal(CompletableFuture<ScheduleReceipt> receipt, ScheduleJournal.Entry entry, int attempt) {
+        receipt.whenComplete((r, e) -> {
+            if (e == null) {
+                journal.acknowledge(entry);
             } else {
-                handleConnectionFailure(future.cause());
+                requeue(entry, attempt + 1, e instanceof CompletionException ? e.getCause() : e);
             }
         });
     }
-    
+
     /**
-     * Handles successful connection
+     * Queues a journaled task for another replay, at most {@link #MAX_JOURNAL_REPLAYS} times per run.
+     * A task whose acknowledgment timed out may well have been delivered, so it is only resent on the next
+     * connection. Other failures are retried with an exponential backoff starting at the ack timeout.
+     * A task out of attempts stays pending in the journal and is replayed on the next start.
      */
-    private void handleConnectionSuccess(Channel newChannel) {
-        this.channel = newChannel;
-        isConnected.set(true);
-        reconnectAttempts.set(0);
-        
-        logger.info("STClient connected successfully to {}:{}", config.getHost(), config.getPort());
-        
-        // 启动心跳任务
-        startHeartbeat();
-        
-        // 添加通道关闭监听器
-        channel.closeFuture().addListener((ChannelFuture closeFuture) -> handleConnectionLost());
+    private void requeue(ScheduleJournal.Entry entry, int attempt, Throwable cause) {
+        // 关闭时保留在日志中，下次启动再重发
+        if (isShuttingDown.get()) {
+            return;
+        }
+        if (attempt > MAX_JOURNAL_REPLAYS) {
+            logger.warn("Journaled task still unacknowledged after {} replays, keeping it for the next start: {}",
+                    MAX_JOURNAL_REPLAYS, cause.getMessage());
+            return;
+        }
+
+        boolean timedOut = cause instanceof TimeoutException;
+        pendingReplays.add(new Replay(entry, attempt, timedOut));
+        if (timedOut) {
+            return;
+        }
+        long delay = Math.min(config.getAckTimeout() << Math.min(attempt - 1, 16), config.getMaxReconnectDelay());
+        resources.timer().newTimeout(t -> {
+            STConnection connection = selectConnection();
+            if (connection != null) {
+                replayJournal(connection.channel(), false);
+            }
+        }, delay, TimeUnit.MILLISECONDS);
     }
-    
+
     /**
-     * Handles connection failure
+     * A journaled task waiting to be resent.
+     * @param attempt the number of times it has been replayed in this run
+     * @param awaitReconnect whether it may only be resent on a freshly connected channel
      */
-    private void handleConnectionFailure(Throwable cause) {
-        isConnected.set(false);
-        int attempts = reconnectAttempts.incrementAndGet();
-        
-        logger.error("Failed to connect STClient to {}:{} (attempt {}), cause: {}",
-                config.getHost(), config.getPort(), attempts, cause.getMessage());
-        
-        if (attempts >= config.getMaxReconnectAttempts()) {
-            logger.error("Max reconnection attempts ({}) reached. Giving up.", config.getMaxReconnectAttempts());
-            shutdown();
-            return;
+    private record Replay(ScheduleJournal.Entry entry, int attempt, boolean awaitReconnect) {
+    }
+
+    /**
+     * @return the registry holding the handlers of this client's triggered tasks
+     */
+    public TaskHandlerPoll handlers() {
+        return config.getHandlers();
+    }
+
+    /**
+     * @return the counters and latency histograms of this client
+     */
+    public STClientMetrics metrics() {
+        return metrics;
+    }
+
+    boolean isShuttingDown() {
+        return isShuttingDown.get();
+    }
+
+    /**
+     * Returns the publisher of a topic's triggered tasks. From then on the topic's messages go to the
+     * publisher's subscriber instead of the registered handlers, and a subscriber that falls behind
+     * pauses reading from the server until it catches up.
+     * @param topic the topic to subscribe to
+     * @return the publisher of the topic
+     */
+    public Flow.Publisher<Message> publisher(String topic) {
+        if (topic == null || topic.trim().isEmpty()) {
+            throw new IllegalArgumentException("Topic cannot be null or empty");
         }
-        
-        if (config.isAutoReconnect()) {
-            scheduleReconnect();
+        return taskDispatcher.publisher(topic, config.getPublisherBufferSize(), this::onPublisherPauseChanged);
+    }
+
+    /**
+     * Stops publishing a topic, its triggered tasks go to the registered handlers again.
+     * The subscriber is completed and messages it has not received yet are handed to the handlers.
+     * @return false if the topic had no publisher
+     */
+    public boolean removePublisher(String topic) {
+        return topic != null && taskDispatcher.removePublisher(topic);
+    }
+
+    private synchronized void onPublisherPauseChanged(boolean paused) {
+        // 任意一个发布者积压都会暂停所有连接的读取
+        if (paused ? pausedPublishers.incrementAndGet() == 1 : pausedPublishers.decrementAndGet() == 0) {
+            logger.info("{} reading triggered tasks", paused ? "Pausing" : "Resuming");
+            connections.forEach(connection -> connection.setAutoRead(!paused));
         }
     }
-    
+
+    boolean isReadPaused() {
+        return pausedPublishers.get() > 0;
+    }
+
     /**
-     * Handles connection lost
+     * Called when a pooled connection exhausted its reconnect attempts.
+     * The client only shuts down once no other member of the pool is connected.
      */
-    private void handleConnectionLost() {
-        if (isShuttingDown.get()) {
-            return;
+    void connectionGaveUp() {
+        if (!isConnected()) {
+            shutdown();
         }
-        
-        isConnected.set(false);
-        logger.warn("Connection lost, attempting to reconnect...");
-        
-        stopHeartbeat();
-        scheduleReconnect();
     }
-    
+
     /**
-     * Schedules a reconnection attempt with exponential backoff
+     * @return true if the client knows more than one endpoint to connect to
      */
-    private void scheduleReconnect() {
-        if (isShuttingDown.get()) {
-            return;
+    boolean hasReplicas() {
+        return endpoints.size() > 1;
+    }
+
+    /**
+     * Picks the healthiest endpoint for a new connection, skipping the ones already tried in the current round.
+     * @return the endpoint, or null if every endpoint was tried
+     */
+    EndpointHealth healthiestEndpoint(Set<EndpointHealth> tried) {
+        EndpointHealth best = null;
+        for (EndpointHealth endpoint : endpoints) {
+            if (!tried.contains(endpoint) && (best == null || endpoint.healthierThan(best))) {
+                best = endpoint;
+            }
         }
-        
-        long delay = Math.min(config.getInitialReconnectDelay() * (1L << Math.min(reconnectAttempts.get() - 1, 6)), 
-                             config.getMaxReconnectDelay());
-        
-        logger.info("Scheduling reconnection attempt in {} ms", delay);
-        
-        reconnectTask = eventLoop.schedule(this::connect, delay, TimeUnit.MILLISECONDS);
+        return best;
     }
-    
+
     /**
-     * Starts the heartbeat task
+     * @return the healthiest endpoint some pooled connection is connected to, or null
      */
-    private void startHeartbeat() {
-        if (heartbeatTask != null && !heartbeatTask.isCancelled()) {
-            heartbeatTask.cancel(false);
+    private EndpointHealth healthiestConnectedEndpoint() {
+        EndpointHealth best = null;
+        for (STConnection connection : connections) {
+            EndpointHealth endpoint = connection.endpoint();
+            if (endpoint != null && endpoint != best && connection.isConnected()
+                    && (best == null || endpoint.healthierThan(best))) {
+                best = endpoint;
+            }
         }
-        
-        heartbeatTask = channel.eventLoop().scheduleAtFixedRate(
-                this::doHeartbeat,
-                1,
-                config.getHeartbeatInterval(),
-                TimeUnit.SECONDS
-        );
-        logger.info("Heartbeat task scheduled successfully");
+        return best;
     }
-    
+
+    /**
+     * Picks a connected member of the pool according to the configured load balance strategy.
+     * With replicas only connections to the healthiest connected endpoint are considered.
+     */
+    private STConnection selectConnection() {
+        int size = connections.size();
+        if (size == 1) {
+            STConnection only = connections.get(0);
+            return only.isConnected() ? only : null;
+        }
+
+        EndpointHealth preferred = hasReplicas() ? healthiestConnectedEndpoint() : null;
+        STConnection selected = selectConnection(preferred);
+        // 首选端点的连接可能恰好断开，退回到任意已连接的成员
+        return selected != null || preferred == null ? selected : selectConnection(null);
+    }
+
+    private STConnection selectConnection(EndpointHealth preferred) {
+        int size = connections.size();
+        if (config.getLoadBalanceStrategy() == LoadBalanceStrategy.LEAST_PENDING_WRITES) {
+            STConnection best = null;
+            long bestWritable = -1;
+            for (STConnection connection : connections) {
+                if (connection.isConnected() && (preferred == null || connection.endpoint() == preferred)) {
+                    long writable = connection.writableBytes();
+                    if (writable > bestWritable) {
+                        best = connection;
+                        bestWritable = writable;
+                    }
+                }
+            }
+            return best;
+        }
+
+        int start = Math.floorMod(nextConnection.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            STConnection connection = connections.get((start + i) % size);
+            if (connection.isConnected() && (preferred == null || connection.endpoint() == preferred)) {
+                return connection;
+            }
+        }
+        return null;
+    }
+
+    private STConnection requireConnection() {
+        STConnection connection = selectConnection();
+        // 连接状态检查
+        if (connection == null) {
+            throw notConnected();
+        }
+        return connection;
+    }
+
+    private static IllegalStateException notConnected() {
+        return new IllegalStateException("Client is not connected. Please ensure the client is started and connected.");
+    }
+
     /**
-     * Stops the heartbeat task
+     * Keeps a pre-encoded task in the outbound buffer until a connection is available
+     * @param buffered whether the caller accepts buffering, otherwise the task fails as not connected
      */
-    private void stopHeartbeat() {
-        if (heartbeatTask != null && !heartbeatTask.isCancelled()) {
-            heartbeatTask.cancel(false);
-            logger.debug("Heartbeat task stopped");
+    private Future<Void> buffer(Message message, boolean buffered) {
+        if (outboundBuffer == null || !buffered) {
+            message.release();
+            throw notConnected();
+        }
+
+        Promise<Void> promise = resources.eventLoop().next().newPromise();
+        ByteBuf frame = MessageEncoder.encodeFrame(resources.allocator(), message);
+        message.release();
+        outboundBuffer.offer(frame, message.requestId(), promise, !inEventLoop());
+
+        // 写入缓冲期间可能已经重连成功
+        STConnection connection = selectConnection();
+        if (connection != null) {
+            connection.drainOutboundBuffer();
+        }
+        return promise;
+    }
+
+    private boolean inEventLoop() {
+        for (EventExecutor executor : resources.eventLoop()) {
+            if (executor.inEventLoop()) {
+                return true;
+            }
         }
+        return false;
     }
 
+    OutboundBuffer outboundBuffer() {
+        return outboundBuffer;
+    }
 
+
+    /**
+     * Schedules a task without waiting for it to be written.
+     * While connected but no connection is writable, the configured {@link BackpressurePolicy} applies.
+     * @return the future of the write, on the channel of the connection selected for the task
+     * @throws IllegalStateException if the client is not connected, see {@link #scheduleBuffered} to buffer instead
+     */
     public ChannelFuture scheduleAsync(String topic, long delay, Supplier<byte[]> payloadTransformer) {
+        STConnection connection = requireConnection();
+        ScheduleEvent event = new ScheduleEvent();
+        event.begin();
+        Message message = createScheduleMessage(topic, delay, payloadTransformer);
+        return channelFuture(connection, scheduleMessage(message, event, false));
+    }
+
+    /**
+     * Schedules a task whose payload is written straight into a pooled buffer of exactly its size,
+     * otherwise the same as {@link #scheduleAsync(String, long, Supplier)}.
+     * @see PayloadWriter#of(CharSequence)
+     * @see PayloadWriter#of(java.nio.ByteBuffer)
+     */
+    public ChannelFuture scheduleAsync(String topic, long delay, PayloadWriter payloadWriter) {
+        STConnection connection = requireConnection();
+        ScheduleEvent event = new ScheduleEvent();
+        event.begin();
+        Message message = createScheduleMessage(topic, delay, payloadWriter);
+        return channelFuture(connection, scheduleMessage(message, event, false));
+    }
+
+    /**
+     * Schedules a task whose payload is serialized by a codec straight into a pooled buffer,
+     * otherwise the same as {@link #scheduleAsync(String, long, Supplier)}.
+     */
+    public <T> ChannelFuture scheduleAsync(String topic, long delay, T value, PayloadCodec<T> codec) {
+        Objects.requireNonNull(codec, "Codec cannot be null");
+        return scheduleAsync(topic, delay, PayloadWriter.of(value, codec));
+    }
+
+    /**
+     * Schedules a task like {@link #scheduleAsync(String, long, Supplier)}, but while disconnected the task
+     * is kept in the outbound buffer if one is configured, otherwise an {@link IllegalStateException} is thrown.
+     * A buffered task has no channel yet, hence the plain future.
+     * @return the future of the write, completed once the task has been written after reconnecting
+     */
+    public Future<Void> scheduleBuffered(String topic, long delay, Supplier<byte[]> payloadTransformer) {
+        ScheduleEvent event = new ScheduleEvent();
+        event.begin();
+        return scheduleMessage(createScheduleMessage(topic, delay, payloadTransformer), event, true);
+    }
+
+    /**
+     * Schedules a task whose payload is written straight into a pooled buffer of exactly its size,
+     * otherwise the same as {@link #scheduleBuffered(String, long, Supplier)}.
+     */
+    public Future<Void> scheduleBuffered(String topic, long delay, PayloadWriter payloadWriter) {
+        ScheduleEvent event = new ScheduleEvent();
+        event.begin();
+        return scheduleMessage(createScheduleMessage(topic, delay, payloadWriter), event, true);
+    }
+
+    /**
+     * Exposes the write of a task as a future of the connection's channel, the write itself may have been
+     * deferred by backpressure or the journal, or gone to another writable connection.
+     */
+    private static ChannelFuture channelFuture(STConnection connection, Future<Void> written) {
+        if (written instanceof ChannelFuture channelFuture) {
+            return channelFuture;
+        }
+        ChannelPromise promise = connection.channel().newPromise();
+        PromiseNotifier.cascade(written, promise);
+        return promise;
+    }
+
+    private Future<Void> scheduleMessage(Message message, ScheduleEvent event, boolean buffered) {
+        String topic = message.topic();
+        int payloadLength = message.payloadLength();
+        long start = System.nanoTime();
+        metrics.scheduled(topic);
+        Future<Void> written;
+        if (journal != null) {
+            // 日志模式下需要确认才能截断日志
+            long requestId = ackTable.nextRequestId();
+            var receipt = track(ackTable.register(requestId, topic));
+            message = message.withRequestId(requestId);
+            written = submitTracked(message, receipt, buffered);
+        } else {
+            written = send(message, buffered);
+            written.addListener(f -> {
+                if (!f.isSuccess()) {
+                    metrics.failed();
+                }
+            });
+        }
+        if (event.shouldCommit()) {
+            event.topic = topic;
+            event.payloadSize = payloadLength;
+            event.delay = message.delay();
+            event.requestId = message.requestId();
+            event.commit();
+        }
+        return recordWrite(written, start);
+    }
+
+    private Future<Void> recordWrite(Future<Void> written, long start) {
+        written.addListener(f -> {
+            if (f.isSuccess()) {
+                metrics.written(start);
+            }
+        });
+        return written;
+    }
+
+    private CompletableFuture<ScheduleReceipt> track(CompletableFuture<ScheduleReceipt> receipt) {
+        receipt.whenComplete((r, e) -> {
+            if (e == null) {
+                metrics.ackLatency(r.ackLatencyNanos());
+            } else {
+                metrics.failed();
+            }
+        });
+        return receipt;
+    }
+
+    private Future<Void> send(Message message, boolean buffered) {
+        STConnection connection = selectConnection();
+        if (connection == null) {
+            return buffer(message, buffered);
+        }
+        BackpressurePolicy policy = config.getBackpressurePolicy();
+        if (policy == BackpressurePolicy.NONE || connection.isWritable()) {
+            return connection.send(message);
+        }
+
+        // 选中的连接不可写时先尝试其他连接
+        STConnection writableConnection = selectWritableConnection();
+        if (writableConnection != null) {
+            return writableConnection.send(message);
+        }
+        return switch (policy) {
+            case FAIL_FAST -> rejected(message,
+                    new RejectedExecutionException("No writable connection, outbound buffer above high watermark"));
+            case BLOCK -> inEventLoop() ? awaitWritable(message) : blockUntilWritable(message, buffered);
+            default -> awaitWritable(message);
+        };
+    }
+
+    private STConnection selectWritableConnection() {
+        for (STConnection connection : connections) {
+            if (connection.isConnected() && connection.isWritable()) {
+                return connection;
+            }
+        }
+        return null;
+    }
+
+    private Future<Void> blockUntilWritable(Message message, boolean buffered) {
+        long remaining = TimeUnit.MILLISECONDS.toNanos(config.getBackpressureTimeout());
+        writabilityLock.lock();
+        try {
+            while (true) {
+                STConnection connection = selectWritableConnection();
+                if (connection != null) {
+                    return connection.send(message);
+                }
+                if (!isConnected()) {
+                    return buffer(message, buffered);
+                }
+                if (remaining <= 0) {
+                    return rejected(message, new TimeoutException("No connection became writable within " + config.getBackpressureTimeout() + " ms"));
+                }
+                remaining = writable.awaitNanos(remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return rejected(message, e);
+        } finally {
+            writabilityLock.unlock();
+        }
+    }
+
+    private Future<Void> rejected(Message message, Throwable cause) {
+        message.release();
+        return resources.eventLoop().next().newFailedFuture(cause);
+    }
+
+    private Future<Void> awaitWritable(Message message) {
+        Promise<Void> promise = resources.eventLoop().next().newPromise();
+        AwaitingWrite waiting = new AwaitingWrite(message, promise);
+        var timeout = resources.timer().newTimeout(t -> {
+            // 仅当仍在队列中时才失败，已被取出的任务由写入结果决定
+            if (awaitingWritability.removeIf(w -> w == waiting)) {
+                message.release();
+                promise.tryFailure(new TimeoutException(
+                        "No connection became writable within " + config.getBackpressureTimeout() + " ms"));
+            }
+        }, config.getBackpressureTimeout(), TimeUnit.MILLISECONDS);
+        promise.addListener(f -> timeout.cancel());
+        awaitingWritability.add(waiting);
+        // 入队期间可能已恢复可写
+        drainAwaitingWritability();
+        return promise;
+    }
+
+    /**
+     * Writes the tasks waiting for writability while some connection is writable
+     */
+    void drainAwaitingWritability() {
+        STConnection connection;
+        AwaitingWrite waiting;
+        while ((connection = selectWritableConnection()) != null && (waiting = awaitingWritability.poll()) != null) {
+            if (!waiting.promise().isDone()) {
+                PromiseNotifier.cascade(connection.send(waiting.message()), waiting.promise());
+            } else {
+                waiting.message().release();
+            }
+        }
+    }
+
+    private void onWritabilityChanged(Channel channel, boolean isWritable) {
+        if (isWritable) {
+            writabilityLock.lock();
+            try {
+                writable.signalAll();
+            } finally {
+                writabilityLock.unlock();
+            }
+            drainAwaitingWritability();
+        }
+        logger.debug("Channel {} is {} writable", channel.id(), isWritable ? "now" : "no longer");
+        for (WritabilityListener listener : writabilityListeners) {
+            try {
+                listener.onWritabilityChanged(channel, isWritable);
+            } catch (Exception e) {
+                logger.warn("Writability listener failed: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Registers a listener notified whenever a connection crosses the write buffer watermarks.
+     */
+    public void addWritabilityListener(WritabilityListener listener) {
+        writabilityListeners.add(Objects.requireNonNull(listener, "Listener cannot be null"));
+    }
+
+    public void removeWritabilityListener(WritabilityListener listener) {
+        writabilityListeners.remove(listener);
+    }
+
+    private record AwaitingWrite(Message message, Promise<Void> promise) {
+    }
+
+    /**
+     * Sends a task whose acknowledgment is tracked. With a journal configured the task is appended and
+     * only sent once the group commit made it durable; its acknowledgment then truncates the journal.
+     */
+    private Future<Void> submitTracked(Message message, CompletableFuture<ScheduleReceipt> receipt, boolean buffered) {
+        long requestId = message.requestId();
+        Future<Void> written;
+        if (journal == null) {
+            written = send(message, buffered);
+        } else {
+            ScheduleJournal.Entry entry;
+            ByteBuf frame = MessageEncoder.encodeFrame(resources.allocator(), message);
+            try {
+                entry = journal.append(frame);
+            } catch (RuntimeException e) {
+                message.release();
+                throw e;
+            } finally {
+                frame.release();
+            }
+            settleJournal(receipt, entry, 0);
+
+            EventExecutor executor = resources.eventLoop().next();
+            Promise<Void> promise = executor.newPromise();
+            // 在事件循环上发送，避免阻塞日志刷盘线程
+            entry.durable().whenCompleteAsync((ignored, cause) -> {
+                if (cause != null) {
+                    message.release();
+                    promise.tryFailure(cause);
+                    return;
+                }
+                try {
+                    send(message, buffered).addListener(f -> {
+                        if (f.isSuccess()) {
+                            promise.trySuccess(null);
+                        } else {
+                            promise.tryFailure(f.cause());
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    promise.tryFailure(e);
+                }
+            }, executor);
+            written = promise;
+        }
+        written.addListener(f -> {
+            if (!f.isSuccess()) {
+                ackTable.fail(requestId, f.cause());
+            }
+        });
+        return written;
+    }
+
+    /**
+     * Schedules a task and waits for the server to confirm it.
+     * Unlike {@link #scheduleAsync}, whose future only tells that the bytes were written,
+     * the returned future completes once the matching TASK_RECEIVED arrives, and fails if the write fails
+     * or no acknowledgment arrives within the configured ack timeout.
+     * @return the future of the server's receipt
+     */
+    public CompletableFuture<ScheduleReceipt> scheduleAcked(String topic, long delay, Supplier<byte[]> payloadTransformer) {
+        return scheduleAcked(createScheduleMessage(topic, delay, payloadTransformer));
+    }
+
+    /**
+     * Same as {@link #scheduleAcked(String, long, Supplier)} with the payload written by a {@link PayloadWriter}.
+     */
+    public CompletableFuture<ScheduleReceipt> scheduleAcked(String topic, long delay, PayloadWriter payloadWriter) {
+        return scheduleAcked(createScheduleMessage(topic, delay, payloadWriter));
+    }
+
+    private CompletableFuture<ScheduleReceipt> scheduleAcked(Message message) {
+        if (journal == null && outboundBuffer == null && selectConnection() == null) {
+            message.release();
+            throw notConnected();
+        }
+
+        String topic = message.topic();
+        long start = System.nanoTime();
+        metrics.scheduled(topic);
+        long requestId = ackTable.nextRequestId();
+        var receipt = track(ackTable.register(requestId, topic));
+        recordWrite(submitTracked(message.withRequestId(requestId), receipt, true), start);
+        return receipt;
+    }
+
+    /**
+     * Schedules many tasks at once. All valid requests are packed into a single
+     * BATCH_SCHEDULE_TASK frame, so the whole batch costs one frame and one flush.
+     * Invalid requests do not fail the batch; their futures in {@link BatchScheduleResult#results()}
+     * are failed with the validation error instead.
+     * <p>
+     * The batch is subject to the {@link BackpressurePolicy} like {@link #scheduleAsync}, but it is neither
+     * buffered while disconnected nor written to the journal, and its tasks are not tracked individually
+     * for acknowledgment.
+     * @param requests the tasks to schedule
+     * @return the aggregate future of the frame together with the per-task results
+     * @throws IllegalArgumentException if the valid tasks do not fit into a single frame
+     */
+    public BatchScheduleResult scheduleBatch(Collection<ScheduleRequest> requests) {
+        Objects.requireNonNull(requests, "Requests cannot be null");
+        if (requests.isEmpty()) {
+            throw new IllegalArgumentException("Requests cannot be empty");
+        }
+        STConnection connection = requireConnection();
+
+        Channel ch = connection.channel();
+        List<Message> tasks = new ArrayList<>(requests.size());
+        List<ChannelFuture> results = new ArrayList<>(requests.size());
+        List<ChannelPromise> accepted = new ArrayList<>(requests.size());
+        for (ScheduleRequest request : requests) {
+            try {
+                tasks.add(createScheduleMessage(request.topic(), request.delay(), request.payloadTransformer()));
+                ChannelPromise promise = ch.newPromise();
+                accepted.add(promise);
+                results.add(promise);
+            } catch (IllegalArgumentException e) {
+                logger.warn("Rejected task for topic '{}' in batch: {}", request.topic(), e.getMessage());
+                results.add(ch.newFailedFuture(e));
+            }
+        }
+
+        if (tasks.isEmpty()) {
+            var future = ch.newFailedFuture(new IllegalArgumentException("No valid task in batch"));
+            return new BatchScheduleResult(future, List.copyOf(results), 0);
+        }
+
+        Message batch;
+        try {
+            batch = Message.createBatchSchedule(resources.allocator(), tasks);
+        } finally {
+            tasks.forEach(Message::release);
+        }
+        long start = System.nanoTime();
+        tasks.forEach(task -> metrics.scheduled(task.topic()));
+        // 与单个任务一样经过背压处理，但不写日志也不逐个跟踪确认
+        ChannelFuture future = channelFuture(connection, send(batch, false));
+        future.addListener((ChannelFuture f) -> {
+            for (ChannelPromise promise : accepted) {
+                if (f.isSuccess()) {
+                    metrics.written(start);
+                    promise.trySuccess();
+                } else {
+                    metrics.failed();
+                    promise.tryFailure(f.cause());
+                }
+            }
+        });
+        return new BatchScheduleResult(future, List.copyOf(results), tasks.size());
+    }
+
+    private Message createScheduleMessage(String topic, long delay, PayloadWriter payloadWriter) {
+        Objects.requireNonNull(payloadWriter, "PayloadWriter cannot be null");
+        validateSchedule(topic, delay);
+
+        return Message.createSchedule(topic, delay, writePayload(resources.allocator(), payloadWriter));
+    }
+
+    /**
+     * Writes a payload into a buffer of exactly its declared size.
+     * @throws IllegalArgumentException if the writer declares no bytes, fails, or writes fewer bytes than declared
+     */
+    static ByteBuf writePayload(ByteBufAllocator allocator, PayloadWriter payloadWriter) {
+        int size = payloadWriter.size();
+        if (size <= 0) {
+            throw new IllegalArgumentException("Payload must not be empty");
+        }
+        // 直接写入池化缓冲区，容量上限即为声明的大小
+        ByteBuf content = allocator.buffer(size, size);
+        try {
+            payloadWriter.write(content);
+        } catch (Exception e) {
+            content.release();
+            throw new IllegalArgumentException("Failed to write payload: " + e.getMessage(), e);
+        }
+        if (content.readableBytes() != size) {
+            content.release();
+            throw new IllegalArgumentException("Payload writer declared " + size + " bytes but wrote " + content.readableBytes());
+        }
+        return content;
+    }
+
+    private static void validateSchedule(String topic, long delay) {
         // 参数校验
         Objects.requireNonNull(topic, "Topic cannot be null");
-        Objects.requireNonNull(payloadTransformer, "PayloadTransformer cannot be null");
-        
+
         if (topic.trim().isEmpty()) {
             throw new IllegalArgumentException("Topic cannot be empty");
         }
-        
+
         if (delay < 1000) {
             throw new IllegalArgumentException("Delay must be at least 1000 milliseconds");
         }
-        
-        // 连接状态检查
-        if (!isConnected.get() || channel == null || !channel.isActive()) {
-            throw new IllegalStateException("Client is not connected. Please ensure the client is started and connected.");
-        }
+    }
+
+    private Message createScheduleMessage(String topic, long delay, Supplier<byte[]> payloadTransformer) {
+        Objects.requireNonNull(payloadTransformer, "PayloadTransformer cannot be null");
+        validateSchedule(topic, delay);
         
         byte[] businessBytes;
         try {
@@ -204,8 +931,7 @@ public class STClient {
             throw new IllegalArgumentException("Payload must not be null or empty");
         }
         
-        var bytes = Message.createSchedule(topic, delay, businessBytes);
-        return channel.writeAndFlush(bytes);
+        return Message.createSchedule(topic, delay, businessBytes);
     }
 
     public boolean schedule(String topic, long delay, Supplier<byte[]> payloadTransformer) {
@@ -224,10 +950,15 @@ public class STClient {
     }
     
     /**
-     * 检查客户端是否已连接
+     * 检查客户端是否已连接（连接池中任意一个连接可用即可）
      */
     public boolean isConnected() {
-        return isConnected.get() && channel != null && channel.isActive();
+        for (STConnection connection : connections) {
+            if (connection.isConnected()) {
+                return true;
+            }
+        }
+        return false;
     }
     
     /**
@@ -236,50 +967,45 @@ public class STClient {
     public void shutdown() {
         if (isShuttingDown.compareAndSet(false, true)) {
             logger.info("Shutting down STClient...");
-            
-            // 取消重连任务
-            if (reconnectTask != null && !reconnectTask.isCancelled()) {
-                reconnectTask.cancel(false);
-            }
-            
-            // 停止心跳
-            stopHeartbeat();
-            
-            // 关闭连接
-            if (channel != null && channel.isActive()) {
-                channel.close().addListener(future -> {
-                    eventLoop.shutdownGracefully();
-                    logger.info("STClient shutdown complete.");
-                });
-            } else {
-                eventLoop.shutdownGracefully();
-                logger.info("STClient shutdown complete.");
+            taskDispatcher.shutdown();
+            if (outboundBuffer != null) {
+                outboundBuffer.failAll(new IllegalStateException("Client has been shut down"));
+            }
+            ackTable.failAll(new IllegalStateException("Client has been shut down"));
+            if (journal != null) {
+                journal.close();
+            }
+            AwaitingWrite waiting;
+            while ((waiting = awaitingWritability.poll()) != null) {
+                waiting.promise().tryFailure(new IllegalStateException("Client has been shut down"));
+                waiting.message().release();
             }
-        }
-    }
 
+            // 关闭所有连接，全部关闭后再释放事件循环
+            List<ChannelFuture> closing = new ArrayList<>();
+            for (STConnection connection : connections) {
+                ChannelFuture closeFuture = connection.close();
+                if (closeFuture != null) {
+                    closing.add(closeFuture);
+                }
+            }
 
-    private void doHeartbeat() {
-        if (!isConnected.get() || channel == null || !channel.isActive()) {
-            logger.debug("Channel is not active, skipping heartbeat");
-            return;
-        }
+            if (closing.isEmpty()) {
+                resources.unregister(this);
+                logger.info("STClient shutdown complete.");
+                return;
+            }
 
-        logger.debug("Sending heartbeat...");
-        var ping = Message.createPING("CLIENT-PING");
-        var result = channel.writeAndFlush(ping);
-        result.addListener((ChannelFuture future) -> {
-            if (future.isSuccess()) {
-                logger.debug("Heartbeat sent successfully");
-            } else {
-                logger.error("Failed to send ping message with cause: {}", future.cause().getMessage());
-                // 心跳失败可能意味着连接有问题，触发重连
-                if (!isShuttingDown.get()) {
-                    logger.warn("Heartbeat failed, connection may be lost");
-                    handleConnectionLost();
-                }
+            AtomicInteger remaining = new AtomicInteger(closing.size());
+            for (ChannelFuture closeFuture : closing) {
+                closeFuture.addListener(future -> {
+                    if (remaining.decrementAndGet() == 0) {
+                        resources.unregister(this);
+                        logger.info("STClient shutdown complete.");
+                    }
+                });
             }
-        });
+        }
     }
 
 
@@ -294,7 +1020,7 @@ public class STClient {
 
 //    public static void main(String[] args) throws InterruptedException {
 //        var instance = new STClient("localhost", 8080);
-//        TaskHandlerPoll.INSTANCE.registerHandler("test-topic", msg -> {
+//        instance.handlers().registerHandler("test-topic", msg -> {
 //            System.out.println("Received message on topic: " + msg.topic());
 //            System.out.println("Message payload: " + new String(msg.payload()));
 //        });
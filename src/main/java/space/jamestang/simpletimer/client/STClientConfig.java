@@ -1,34 +1,212 @@
 package space.jamestang.simpletimer.client;
 
+import space.jamestang.simpletimer.client.compression.CompressionCodec;
+import space.jamestang.simpletimer.client.handler.TaskHandlerPoll;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
 /**
  * Configuration class for STClient
  */
 public class STClientConfig {
     private final String host;
     private final int port;
+    private final List<Endpoint> replicas;
     private final int maxReconnectAttempts;
     private final long initialReconnectDelay;
     private final long maxReconnectDelay;
+    private final long stableConnectionTime;
     private final long heartbeatInterval;
+    private final long heartbeatTimeout;
     private final boolean autoReconnect;
+    private final boolean writeCoalescing;
+    private final int writeCoalescingMaxBatch;
+    private final long writeCoalescingDelayMicros;
+    private final Transport transport;
+    private final boolean tcpQuickAck;
+    private final int connectionPoolSize;
+    private final LoadBalanceStrategy loadBalanceStrategy;
+    private final Executor handlerExecutor;
+    private final TaskHandlerPoll handlers;
+    private final boolean orderedHandlerExecution;
+    private final int maxConcurrencyPerTopic;
+    private final int publisherBufferSize;
+    private final boolean zeroCopyDecoding;
+    private final int protocolVersion;
+    private final long protocolNegotiationTimeout;
+    private final long ackTimeout;
+    private final int outboundBufferSize;
+    private final OverflowPolicy outboundBufferOverflowPolicy;
+    private final long outboundBufferBlockTimeout;
+    private final Path journalDirectory;
+    private final int journalSegmentSize;
+    private final long journalGroupCommitMicros;
+    private final int writeBufferLowWaterMark;
+    private final int writeBufferHighWaterMark;
+    private final BackpressurePolicy backpressurePolicy;
+    private final long backpressureTimeout;
+    private final boolean compression;
+    private final int compressionThreshold;
+    private final Supplier<CompressionCodec> compressionCodec;
     
     STClientConfig(Builder builder) {
         this.host = builder.host;
         this.port = builder.port;
+        this.replicas = builder.replicas;
         this.maxReconnectAttempts = builder.maxReconnectAttempts;
         this.initialReconnectDelay = builder.initialReconnectDelay;
         this.maxReconnectDelay = builder.maxReconnectDelay;
+        this.stableConnectionTime = builder.stableConnectionTime;
         this.heartbeatInterval = builder.heartbeatInterval;
+        this.heartbeatTimeout = builder.heartbeatTimeout != 0 ? builder.heartbeatTimeout : builder.heartbeatInterval * 3;
         this.autoReconnect = builder.autoReconnect;
+        this.writeCoalescing = builder.writeCoalescing;
+        this.writeCoalescingMaxBatch = builder.writeCoalescingMaxBatch;
+        this.writeCoalescingDelayMicros = builder.writeCoalescingDelayMicros;
+        this.transport = builder.transport;
+        this.tcpQuickAck = builder.tcpQuickAck;
+        this.connectionPoolSize = builder.connectionPoolSize;
+        this.loadBalanceStrategy = builder.loadBalanceStrategy;
+        this.handlerExecutor = builder.handlerExecutor;
+        this.handlers = builder.handlers;
+        this.orderedHandlerExecution = builder.orderedHandlerExecution;
+        this.maxConcurrencyPerTopic = builder.maxConcurrencyPerTopic;
+        this.publisherBufferSize = builder.publisherBufferSize;
+        this.zeroCopyDecoding = builder.zeroCopyDecoding;
+        this.protocolVersion = builder.protocolVersion;
+        this.protocolNegotiationTimeout = builder.protocolNegotiationTimeout;
+        this.ackTimeout = builder.ackTimeout;
+        this.outboundBufferSize = builder.outboundBufferSize;
+        this.outboundBufferOverflowPolicy = builder.outboundBufferOverflowPolicy;
+        this.outboundBufferBlockTimeout = builder.outboundBufferBlockTimeout;
+        this.journalDirectory = builder.journalDirectory;
+        this.journalSegmentSize = builder.journalSegmentSize;
+        this.journalGroupCommitMicros = builder.journalGroupCommitMicros;
+        this.writeBufferLowWaterMark = builder.writeBufferLowWaterMark;
+        this.writeBufferHighWaterMark = builder.writeBufferHighWaterMark;
+        this.backpressurePolicy = builder.backpressurePolicy;
+        this.backpressureTimeout = builder.backpressureTimeout;
+        this.compression = builder.compression;
+        this.compressionThreshold = builder.compressionThreshold;
+        this.compressionCodec = builder.compressionCodec;
+    }
+
+    private STClientConfig(STClientConfig base, String host, int port, Path journalDirectory) {
+        this.host = host;
+        this.port = port;
+        // 副本属于原端点，分片后的配置不再继承
+        this.replicas = List.of();
+        this.maxReconnectAttempts = base.maxReconnectAttempts;
+        this.initialReconnectDelay = base.initialReconnectDelay;
+        this.maxReconnectDelay = base.maxReconnectDelay;
+        this.stableConnectionTime = base.stableConnectionTime;
+        this.heartbeatInterval = base.heartbeatInterval;
+        this.heartbeatTimeout = base.heartbeatTimeout;
+        this.autoReconnect = base.autoReconnect;
+        this.writeCoalescing = base.writeCoalescing;
+        this.writeCoalescingMaxBatch = base.writeCoalescingMaxBatch;
+        this.writeCoalescingDelayMicros = base.writeCoalescingDelayMicros;
+        this.transport = base.transport;
+        this.tcpQuickAck = base.tcpQuickAck;
+        this.connectionPoolSize = base.connectionPoolSize;
+        this.loadBalanceStrategy = base.loadBalanceStrategy;
+        this.handlerExecutor = base.handlerExecutor;
+        this.handlers = base.handlers;
+        this.orderedHandlerExecution = base.orderedHandlerExecution;
+        this.maxConcurrencyPerTopic = base.maxConcurrencyPerTopic;
+        this.publisherBufferSize = base.publisherBufferSize;
+        this.zeroCopyDecoding = base.zeroCopyDecoding;
+        this.protocolVersion = base.protocolVersion;
+        this.protocolNegotiationTimeout = base.protocolNegotiationTimeout;
+        this.ackTimeout = base.ackTimeout;
+        this.outboundBufferSize = base.outboundBufferSize;
+        this.outboundBufferOverflowPolicy = base.outboundBufferOverflowPolicy;
+        this.outboundBufferBlockTimeout = base.outboundBufferBlockTimeout;
+        this.journalDirectory = journalDirectory;
+        this.journalSegmentSize = base.journalSegmentSize;
+        this.journalGroupCommitMicros = base.journalGroupCommitMicros;
+        this.writeBufferLowWaterMark = base.writeBufferLowWaterMark;
+        this.writeBufferHighWaterMark = base.writeBufferHighWaterMark;
+        this.backpressurePolicy = base.backpressurePolicy;
+        this.backpressureTimeout = base.backpressureTimeout;
+        this.compression = base.compression;
+        this.compressionThreshold = base.compressionThreshold;
+        this.compressionCodec = base.compressionCodec;
+    }
+
+    /**
+     * Copy of this configuration pointing at another endpoint, used by clients spanning several servers.
+     * A configured journal directory gets a per-endpoint subdirectory, so the clients never share segments.
+     */
+    STClientConfig forEndpoint(Endpoint endpoint) {
+        Path journal = journalDirectory != null
+                ? journalDirectory.resolve(endpoint.host() + "_" + endpoint.port())
+                : null;
+        return new STClientConfig(this, endpoint.host(), endpoint.port(), journal);
     }
+
+    /**
+     * @return the endpoint of this configuration
+     */
+    public Endpoint getEndpoint() { return new Endpoint(host, port); }
     
+    /**
+     * @return the replica endpoints, without the primary
+     */
+    public List<Endpoint> getReplicas() { return replicas; }
+
+    /**
+     * @return the primary endpoint followed by the replicas
+     */
+    public List<Endpoint> getEndpoints() {
+        List<Endpoint> endpoints = new ArrayList<>(replicas.size() + 1);
+        endpoints.add(getEndpoint());
+        endpoints.addAll(replicas);
+        return endpoints;
+    }
+
     public String getHost() { return host; }
     public int getPort() { return port; }
     public int getMaxReconnectAttempts() { return maxReconnectAttempts; }
     public long getInitialReconnectDelay() { return initialReconnectDelay; }
     public long getMaxReconnectDelay() { return maxReconnectDelay; }
+    public long getStableConnectionTime() { return stableConnectionTime; }
     public long getHeartbeatInterval() { return heartbeatInterval; }
+    public long getHeartbeatTimeout() { return heartbeatTimeout; }
     public boolean isAutoReconnect() { return autoReconnect; }
+    public boolean isWriteCoalescing() { return writeCoalescing; }
+    public int getWriteCoalescingMaxBatch() { return writeCoalescingMaxBatch; }
+    public long getWriteCoalescingDelayMicros() { return writeCoalescingDelayMicros; }
+    public Transport getTransport() { return transport; }
+    public boolean isTcpQuickAck() { return tcpQuickAck; }
+    public int getConnectionPoolSize() { return connectionPoolSize; }
+    public LoadBalanceStrategy getLoadBalanceStrategy() { return loadBalanceStrategy; }
+    public Executor getHandlerExecutor() { return handlerExecutor; }
+    public TaskHandlerPoll getHandlers() { return handlers; }
+    public boolean isOrderedHandlerExecution() { return orderedHandlerExecution; }
+    public int getMaxConcurrencyPerTopic() { return maxConcurrencyPerTopic; }
+    public int getPublisherBufferSize() { return publisherBufferSize; }
+    public boolean isZeroCopyDecoding() { return zeroCopyDecoding; }
+    public int getProtocolVersion() { return protocolVersion; }
+    public long getProtocolNegotiationTimeout() { return protocolNegotiationTimeout; }
+    public long getAckTimeout() { return ackTimeout; }
+    public int getOutboundBufferSize() { return outboundBufferSize; }
+    public OverflowPolicy getOutboundBufferOverflowPolicy() { return outboundBufferOverflowPolicy; }
+    public long getOutboundBufferBlockTimeout() { return outboundBufferBlockTimeout; }
+    public Path getJournalDirectory() { return journalDirectory; }
+    public int getJournalSegmentSize() { return journalSegmentSize; }
+    public long getJournalGroupCommitMicros() { return journalGroupCommitMicros; }
+    public int getWriteBufferLowWaterMark() { return writeBufferLowWaterMark; }
+    public int getWriteBufferHighWaterMark() { return writeBufferHighWaterMark; }
+    public BackpressurePolicy getBackpressurePolicy() { return backpressurePolicy; }
+    public long getBackpressureTimeout() { return backpressureTimeout; }
+    public boolean isCompression() { return compression; }
+    public int getCompressionThreshold() { return compressionThreshold; }
+    public Supplier<CompressionCodec> getCompressionCodec() { return compressionCodec; }
     
     public static Builder builder(String host, int port) {
         return new Builder(host, port);
@@ -0,0 +1,162 @@
+package space.jamestang.simpletimer.client;
+
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.MultiThreadIoEventLoopGroup;
+import io.netty.util.AbstractReferenceCounted;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.ReferenceCounted;
+import io.netty.util.Timer;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Event loops, allocator and timer that can be shared by many STClient instances.
+ * <p>
+ * The resources are reference counted: every client created from them retains a reference
+ * and releases it on shutdown, the creator holds the initial reference and must {@link #release()} it
+ * once no more clients are going to be created. The event loops and the timer are shut down
+ * when the last reference is released.
+ */
+public class STClientResources extends AbstractReferenceCounted {
+    private static final Logger logger = LoggerFactory.getLogger(STClientResources.class);
+
+    private final Transport transport;
+    private final MultiThreadIoEventLoopGroup eventLoop;
+    private final ByteBufAllocator allocator;
+    private final HashedWheelTimer timer;
+    private final Set<STClient> clients = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Timer of all private resources. Netty warns once more than 64 {@link HashedWheelTimer}s exist,
+     * which clients created one per tenant would easily reach; its daemon thread lives as long as the JVM.
+     */
+    private static final class SharedTimer {
+        static final HashedWheelTimer INSTANCE = new HashedWheelTimer(new DefaultThreadFactory("st-client-timer", true));
+    }
+
+    private STClientResources(ResourcesBuilder builder) {
+        this.transport = builder.transport.resolve();
+        this.eventLoop = new MultiThreadIoEventLoopGroup(builder.ioThreads, transport.ioHandlerFactory());
+        this.allocator = builder.allocator;
+        this.timer = builder.sharedTimer
+                ? SharedTimer.INSTANCE
+                : new HashedWheelTimer(new DefaultThreadFactory("st-client-timer", true));
+
+        if (builder.shutdownHook) {
+            Runtime.getRuntime().addShutdownHook(new Thread(this::shutdownClients));
+        }
+        logger.info("STClientResources created with {} transport", transport);
+    }
+
+    public static ResourcesBuilder builder() {
+        return new ResourcesBuilder();
+    }
+
+    /**
+     * Creates a client on top of these resources.
+     * @param config the client configuration, its transport setting is ignored in favour of {@link #transport()}
+     * @return a new, not yet started client
+     */
+    public STClient newClient(STClientConfig config) {
+        return new STClient(config, this);
+    }
+
+    /**
+     * Resources exclusively owned by a single client, used when no shared resources are given.
+     */
+    static STClientResources createPrivate(Transport transport) {
+        ResourcesBuilder builder = new ResourcesBuilder().transport(transport).shutdownHook(false);
+        builder.sharedTimer = true;
+        return builder.build();
+    }
+
+    void register(STClient client) {
+        retain();
+        clients.add(client);
+    }
+
+    void unregister(STClient client) {
+        if (clients.remove(client)) {
+            release();
+        }
+    }
+
+    private void shutdownClients() {
+        for (STClient client : clients) {
+            client.shutdown();
+        }
+    }
+
+    public Transport transport() { return transport; }
+    public MultiThreadIoEventLoopGroup eventLoop() { return eventLoop; }
+    public ByteBufAllocator allocator() { return allocator; }
+    public Timer timer() { return timer; }
+
+    @Override
+    protected void deallocate() {
+        eventLoop.shutdownGracefully();
+        if (timer != SharedTimer.INSTANCE) {
+            timer.stop();
+        }
+        logger.info("STClientResources released.");
+    }
+
+    @Override
+    public ReferenceCounted touch(Object hint) {
+        return this;
+    }
+
+    public static class ResourcesBuilder {
+        Transport transport = Transport.AUTO;
+        int ioThreads = 0;
+        ByteBufAllocator allocator = ByteBufAllocator.DEFAULT;
+        boolean shutdownHook = true;
+        boolean sharedTimer = false;
+
+        ResourcesBuilder() {
+        }
+
+        public ResourcesBuilder transport(Transport transport) {
+            if (transport == null) {
+                throw new IllegalArgumentException("Transport cannot be null");
+            }
+            this.transport = transport;
+            return this;
+        }
+
+        /**
+         * Number of I/O threads, 0 uses Netty's default of twice the number of cores.
+         */
+        public ResourcesBuilder ioThreads(int ioThreads) {
+            if (ioThreads < 0) {
+                throw new IllegalArgumentException("IO threads cannot be negative");
+            }
+            this.ioThreads = ioThreads;
+            return this;
+        }
+
+        public ResourcesBuilder allocator(ByteBufAllocator allocator) {
+            if (allocator == null) {
+                throw new IllegalArgumentException("Allocator cannot be null");
+            }
+            this.allocator = allocator;
+            return this;
+        }
+
+        /**
+         * Whether a JVM shutdown hook closes all clients created from the resources, enabled by default.
+         */
+        public ResourcesBuilder shutdownHook(boolean shutdownHook) {
+            this.shutdownHook = shutdownHook;
+            return this;
+        }
+
+        public STClientResources build() {
+            return new STClientResources(this);
+        }
+    }
+}
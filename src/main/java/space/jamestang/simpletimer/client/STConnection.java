@@ -0,0 +1,318 @@
+package space.jamestang.simpletimer.client;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.EventLoopGroup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import space.jamestang.simpletimer.client.jfr.ReconnectEvent;
+import space.jamestang.simpletimer.client.network.HeartbeatHandler;
+import space.jamestang.simpletimer.client.network.Message;
+import space.jamestang.simpletimer.client.network.ProtocolSession;
+import space.jamestang.simpletimer.client.network.WriteCoalescer;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One member of the STClient connection pool.
+ * Each connection owns its channel and runs its own reconnect cycle, heartbeats are driven by the
+ * channel's idle state in the pipeline.
+ * <p>
+ * With replicas configured every connect attempt goes to the healthiest endpoint not yet tried in the
+ * current round. Failures move on to the next endpoint immediately, the reconnect backoff only starts
+ * once every endpoint failed.
+ */
+class STConnection {
+    private final Logger logger = LoggerFactory.getLogger(STConnection.class);
+
+    private final STClient owner;
+    private final int id;
+    private final Bootstrap bootstrap;
+    private final EventLoopGroup eventLoop;
+    private final STClientConfig config;
+
+    private volatile Channel channel;
+    private volatile EndpointHealth endpoint;
+    private final Set<EndpointHealth> triedEndpoints = ConcurrentHashMap.newKeySet();
+    private volatile WriteCoalescer writeCoalescer;
+    private ScheduledFuture<?> reconnectTask;
+
+    // 连接状态管理
+    private final AtomicBoolean isConnected = new AtomicBoolean(false);
+    private final AtomicInteger reconnectAttempts = new AtomicInteger(0);
+    // 退避级别，只有连接稳定一段时间后才清零
+    private final AtomicInteger backoffLevel = new AtomicInteger(0);
+    private volatile long connectedAtNanos;
+
+    STConnection(STClient owner, int id, Bootstrap bootstrap, EventLoopGroup eventLoop, STClientConfig config) {
+        this.owner = owner;
+        this.id = id;
+        this.bootstrap = bootstrap;
+        this.eventLoop = eventLoop;
+        this.config = config;
+    }
+
+    /**
+     * Attempts to connect to the server with retry logic
+     */
+    void connect() {
+        if (owner.isShuttingDown()) {
+            return;
+        }
+
+        EndpointHealth target = owner.healthiestEndpoint(triedEndpoints);
+        if (target == null) {
+            // 本轮所有端点都已尝试过，重新开始一轮
+            triedEndpoints.clear();
+            target = owner.healthiestEndpoint(triedEndpoints);
+        }
+        this.endpoint = target;
+
+        EndpointHealth attempted = target;
+        ChannelFuture connectFuture = bootstrap.connect(attempted.endpoint().host(), attempted.endpoint().port());
+        connectFuture.addListener((ChannelFuture future) -> {
+            if (future.isSuccess()) {
+                handleConnectionSuccess(future.channel(), attempted);
+            } else {
+                handleConnectionFailure(future.cause(), attempted);
+            }
+        });
+    }
+
+    /**
+     * Handles successful connection
+     */
+    private void handleConnectionSuccess(Channel newChannel, EndpointHealth connected) {
+        this.writeCoalescer = config.isWriteCoalescing()
+                ? new WriteCoalescer(newChannel, config.getWriteCoalescingMaxBatch(), config.getWriteCoalescingDelayMicros())
+                : null;
+        if (owner.isReadPaused()) {
+            newChannel.config().setAutoRead(false);
+        }
+
+        // 协商协议版本
+        if (config.getProtocolVersion() >= ProtocolSession.V2) {
+            negotiateProtocol(newChannel);
+        }
+
+        // 心跳往返时间计入端点健康度
+        newChannel.pipeline().get(HeartbeatHandler.class).rttListener(connected::rtt);
+
+        // 先重发日志中未确认的任务和断线期间缓存的任务，再开放连接，避免新任务插到它们前面
+        owner.replayJournal(newChannel);
+        drainOutboundBuffer(newChannel);
+
+        this.channel = newChannel;
+        connectedAtNanos = System.nanoTime();
+        isConnected.set(true);
+        reconnectAttempts.set(0);
+        triedEndpoints.clear();
+        connected.success();
+
+        logger.info("Connection #{} connected successfully to {}", id, connected.endpoint());
+
+        // 排空期间才进入缓冲区的任务
+        drainOutboundBuffer(newChannel);
+        owner.drainAwaitingWritability();
+
+        // 添加通道关闭监听器
+        newChannel.closeFuture().addListener((ChannelFuture closeFuture) -> handleConnectionLost(connected));
+    }
+
+    /**
+     * Offers protocol v2 to the server. Frames keep using v1 until the server's HELLO reply arrives,
+     * a server that does not understand HELLO simply never replies.
+     */
+    private void negotiateProtocol(Channel newChannel) {
+        newChannel.writeAndFlush(Message.createHello(config.getProtocolVersion()));
+        newChannel.eventLoop().schedule(() -> {
+            ProtocolSession session = ProtocolSession.of(newChannel);
+            if (session != null && !session.isNegotiated()) {
+                logger.info("Server did not answer protocol negotiation on #{}, staying on version 1", id);
+            }
+        }, config.getProtocolNegotiationTimeout(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Handles connection failure
+     */
+    private void handleConnectionFailure(Throwable cause, EndpointHealth failed) {
+        isConnected.set(false);
+        failed.failure();
+        triedEndpoints.add(failed);
+
+        if (config.isAutoReconnect() && owner.healthiestEndpoint(triedEndpoints) != null) {
+            logger.warn("Failed to connect #{} to {}, cause: {}, failing over", id, failed, cause.getMessage());
+            eventLoop.execute(this::connect);
+            return;
+        }
+
+        // 一轮下来所有端点都失败才计为一次重连尝试
+        triedEndpoints.clear();
+        int attempts = reconnectAttempts.incrementAndGet();
+        backoffLevel.incrementAndGet();
+
+        logger.error("Failed to connect #{} to {} (attempt {}), cause: {}",
+                id, owner.hasReplicas() ? config.getEndpoints() : failed.endpoint(), attempts, cause.getMessage());
+
+        if (attempts >= config.getMaxReconnectAttempts()) {
+            logger.error("Max reconnection attempts ({}) reached. Giving up connection #{}.",
+                    config.getMaxReconnectAttempts(), id);
+            owner.connectionGaveUp();
+            return;
+        }
+
+        if (config.isAutoReconnect()) {
+            scheduleReconnect();
+        }
+    }
+
+    /**
+     * Handles connection lost
+     */
+    private void handleConnectionLost(EndpointHealth lost) {
+        if (owner.isShuttingDown() || !isConnected.compareAndSet(true, false)) {
+            return;
+        }
+
+        lost.failure();
+        // 连接稳定一段时间后退避才重新计数，建立后很快断开的连接提高一级退避
+        boolean stable = System.nanoTime() - connectedAtNanos >= TimeUnit.MILLISECONDS.toNanos(config.getStableConnectionTime());
+        if (stable) {
+            backoffLevel.set(0);
+        } else {
+            backoffLevel.incrementAndGet();
+        }
+        triedEndpoints.add(lost);
+
+        if (config.isAutoReconnect() && owner.hasReplicas() && stable) {
+            logger.warn("Connection #{} to {} lost, failing over...", id, lost);
+            connect();
+            return;
+        }
+
+        logger.warn("Connection #{} to {} lost{}, attempting to reconnect...", id, lost,
+                stable ? "" : " shortly after connecting");
+        scheduleReconnect();
+    }
+
+    /**
+     * Schedules a reconnection attempt with exponential backoff
+     */
+    private void scheduleReconnect() {
+        if (owner.isShuttingDown()) {
+            return;
+        }
+
+        long delay = Math.min(config.getInitialReconnectDelay() * (1L << Math.min(Math.max(backoffLevel.get() - 1, 0), 6)),
+                             config.getMaxReconnectDelay());
+
+        logger.info("Scheduling reconnection attempt of #{} in {} ms", id, delay);
+        owner.metrics().reconnect();
+        ReconnectEvent event = new ReconnectEvent();
+        if (event.shouldCommit()) {
+            event.connection = id;
+            event.attempt = reconnectAttempts.get();
+            event.backoff = delay;
+            event.remoteAddress = owner.hasReplicas() ? config.getEndpoints().toString() : config.getEndpoint().toString();
+            event.commit();
+        }
+
+        reconnectTask = eventLoop.schedule(this::connect, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Writes a message either through the write coalescer or directly with its own flush
+     */
+    ChannelFuture send(Message message) {
+        WriteCoalescer coalescer = writeCoalescer;
+        if (coalescer != null) {
+            return coalescer.write(message);
+        }
+        return channel.writeAndFlush(message);
+    }
+
+    /**
+     * Writes the tasks buffered while disconnected to this connection, on its event loop
+     */
+    void drainOutboundBuffer() {
+        Channel ch = channel;
+        if (ch != null) {
+            drainOutboundBuffer(ch);
+        }
+    }
+
+    private void drainOutboundBuffer(Channel ch) {
+        OutboundBuffer buffer = owner.outboundBuffer();
+        if (buffer == null || buffer.isEmpty()) {
+            return;
+        }
+        if (ch.eventLoop().inEventLoop()) {
+            buffer.drainTo(ch);
+        } else {
+            ch.eventLoop().execute(() -> buffer.drainTo(ch));
+        }
+    }
+
+    boolean isConnected() {
+        Channel ch = channel;
+        return isConnected.get() && ch != null && ch.isActive();
+    }
+
+    void setAutoRead(boolean autoRead) {
+        Channel ch = channel;
+        if (ch != null) {
+            ch.config().setAutoRead(autoRead);
+        }
+    }
+
+    Channel channel() {
+        return channel;
+    }
+
+    /**
+     * @return the endpoint this connection is connected or connecting to, null before the first attempt
+     */
+    EndpointHealth endpoint() {
+        return endpoint;
+    }
+
+    /**
+     * @return whether the channel is below its write buffer high watermark, false if disconnected
+     */
+    boolean isWritable() {
+        Channel ch = channel;
+        return ch != null && ch.isWritable();
+    }
+
+    /**
+     * @return bytes that can still be written before the channel becomes unwritable, 0 if disconnected
+     */
+    long writableBytes() {
+        Channel ch = channel;
+        return ch == null ? 0 : ch.bytesBeforeUnwritable();
+    }
+
+    /**
+     * Stops the reconnect task and closes the channel
+     * @return the close future, or null if there was no open channel
+     */
+    ChannelFuture close() {
+        // 取消重连任务
+        if (reconnectTask != null && !reconnectTask.isCancelled()) {
+            reconnectTask.cancel(false);
+        }
+
+        Channel ch = channel;
+        if (ch != null && ch.isActive()) {
+            return ch.close();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,354 @@
+package space.jamestang.simpletimer.client;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.internal.PlatformDependent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * Write-ahead journal of encoded schedule frames, so tasks that were not yet acknowledged by the server
+ * survive a restart of the process.
+ * <p>
+ * The journal is a sequence of memory-mapped segment files. Each record is
+ * {@code int length, byte state, frame}, where state is PENDING until the server acknowledges the task
+ * and ACKED afterwards; a zero length marks the end of a segment. A segment file is deleted once it is
+ * full and all of its records are acknowledged. Appends are made durable by a group commit: a flusher
+ * thread waits a short interval for more appends and then forces all dirty segments at once, so
+ * durability costs one {@code force()} per group rather than per task. Acknowledgments are not forced,
+ * a crash may therefore replay an already acknowledged task, which makes delivery at-least-once.
+ */
+class ScheduleJournal implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ScheduleJournal.class);
+
+    private static final int RECORD_HEADER = 4 + 1;
+    private static final byte PENDING = 1;
+    private static final byte ACKED = 2;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final long groupCommitNanos;
+    private final Thread flusher;
+
+    private final Object lock = new Object();
+    private Segment active;
+    private long nextSegmentId;
+    private List<CompletableFuture<Void>> waiters = new ArrayList<>();
+    private Set<Segment> dirty = new HashSet<>();
+    private final Set<Segment> segments = new HashSet<>();
+    private volatile boolean running = true;
+    private final List<Entry> recovered;
+
+    ScheduleJournal(Path directory, int segmentSize, long groupCommitMicros) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.groupCommitNanos = TimeUnit.MICROSECONDS.toNanos(groupCommitMicros);
+        try {
+            Files.createDirectories(directory);
+            this.recovered = recover();
+            this.active = newSegment();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open schedule journal in " + directory, e);
+        }
+        this.flusher = new DefaultThreadFactory("st-journal-flusher", true).newThread(this::flushLoop);
+        flusher.start();
+        logger.info("Schedule journal opened in {}, {} unacknowledged task(s) to replay", directory, recovered.size());
+    }
+
+    /**
+     * @return the unacknowledged records found when the journal was opened
+     */
+    List<Entry> recovered() {
+        return recovered;
+    }
+
+    /**
+     * Appends an encoded frame.
+     * @return the journal entry, whose {@link Entry#durable()} completes once the record has been forced to disk
+     */
+    Entry append(ByteBuf frame) {
+        int length = frame.readableBytes();
+        if (RECORD_HEADER + length + 4 > segmentSize) {
+            throw new IllegalArgumentException("Task of " + length + " bytes exceeds journal segment size " + segmentSize);
+        }
+        var durable = new CompletableFuture<Void>();
+        Entry entry;
+        synchronized (lock) {
+            if (!running) {
+                throw new IllegalStateException("Schedule journal is closed");
+            }
+            // 预留结尾的4字节长度0作为段结束标记
+            if (active.position + RECORD_HEADER + length + 4 > segmentSize) {
+                rollSegment();
+            }
+            Segment segment = active;
+            int position = segment.position;
+            MappedByteBuffer buffer = segment.buffer;
+            frame.getBytes(frame.readerIndex(), buffer.slice(position + RECORD_HEADER, length));
+            buffer.put(position + 4, PENDING);
+            // 最后写入长度，确保崩溃时不会读到不完整的记录
+            buffer.putInt(position, length);
+            segment.position += RECORD_HEADER + length;
+            segment.live.incrementAndGet();
+
+            entry = new Entry(segment, position, length, durable);
+            dirty.add(segment);
+            waiters.add(durable);
+            lock.notifyAll();
+        }
+        return entry;
+    }
+
+    /**
+     * Marks an entry acknowledged, deleting its segment once nothing in it is pending any more.
+     */
+    void acknowledge(Entry entry) {
+        Segment segment = entry.segment;
+        synchronized (lock) {
+            if (segment.closed) {
+                return;
+            }
+            segment.buffer.put(entry.position + 4, ACKED);
+            if (segment.live.decrementAndGet() == 0 && segment != active) {
+                delete(segment);
+            }
+        }
+    }
+
+    /**
+     * @return a copy of the frame of a pending entry
+     */
+    byte[] frame(Entry entry) {
+        byte[] frame = new byte[entry.length];
+        // 条目未确认前其所在段不会被删除
+        synchronized (lock) {
+            if (entry.segment.closed) {
+                throw new IllegalStateException("Schedule journal is closed");
+            }
+            entry.segment.buffer.get(entry.position + RECORD_HEADER, frame);
+        }
+        return frame;
+    }
+
+    private void rollSegment() {
+        if (active.live.get() == 0) {
+            delete(active);
+        }
+        try {
+            active = newSegment();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create journal segment", e);
+        }
+    }
+
+    private Segment newSegment() throws IOException {
+        Path path = directory.resolve(String.format("journal-%019d.seg", nextSegmentId++));
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            Segment segment = new Segment(path, buffer);
+            segments.add(segment);
+            return segment;
+        }
+    }
+
+    private void delete(Segment segment) {
+        segment.closed = true;
+        dirty.remove(segment);
+        segments.remove(segment);
+        try {
+            Files.deleteIfExists(segment.path);
+            logger.debug("Deleted fully acknowledged journal segment {}", segment.path.getFileName());
+        } catch (IOException e) {
+            logger.warn("Failed to delete journal segment {}: {}", segment.path, e.getMessage());
+        }
+    }
+
+    /**
+     * Scans existing segments for pending records. Fully acknowledged segments are deleted right away,
+     * the others stay mapped until their replayed records are acknowledged.
+     */
+    private List<Entry> recover() throws IOException {
+        List<Path> paths;
+        try (Stream<Path> files = Files.list(directory)) {
+            paths = files.filter(p -> p.getFileName().toString().matches("journal-\\d{19}\\.seg")).sorted().toList();
+        }
+
+        List<Entry> pending = new ArrayList<>();
+        for (Path path : paths) {
+            String name = path.getFileName().toString();
+            nextSegmentId = Math.max(nextSegmentId, Long.parseLong(name.substring(8, 27)) + 1);
+
+            MappedByteBuffer buffer;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            }
+            Segment segment = new Segment(path, buffer);
+            segments.add(segment);
+
+            int position = 0;
+            while (position + RECORD_HEADER <= buffer.capacity()) {
+                int length = buffer.getInt(position);
+                if (length <= 0 || position + RECORD_HEADER + length > buffer.capacity()) {
+                    break;
+                }
+                if (buffer.get(position + 4) == PENDING) {
+                    segment.live.incrementAndGet();
+                    pending.add(new Entry(segment, position, length, CompletableFuture.completedFuture(null)));
+                }
+                position += RECORD_HEADER + length;
+            }
+            segment.position = position;
+
+            if (segment.live.get() == 0) {
+                delete(segment);
+            }
+        }
+        return pending;
+    }
+
+    private void flushLoop() {
+        while (running) {
+            synchronized (lock) {
+                while (waiters.isEmpty() && running) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+            if (groupCommitNanos > 0) {
+                // 等待更多追加，合并为一次force
+                LockSupport.parkNanos(groupCommitNanos);
+            }
+            commit();
+        }
+        commit();
+    }
+
+    private void commit() {
+        List<CompletableFuture<Void>> batch;
+        Set<Segment> segments;
+        synchronized (lock) {
+            if (waiters.isEmpty()) {
+                return;
+            }
+            batch = waiters;
+            segments = dirty;
+            waiters = new ArrayList<>();
+            dirty = new HashSet<>();
+        }
+        try {
+            for (Segment segment : segments) {
+                if (!segment.closed) {
+                    segment.buffer.force();
+                }
+            }
+            batch.forEach(f -> f.complete(null));
+        } catch (RuntimeException e) {
+            logger.error("Failed to force schedule journal: {}", e.getMessage(), e);
+            batch.forEach(f -> f.completeExceptionally(e));
+        }
+    }
+
+    /**
+     * Stops the flusher after a final group commit, then forces the acknowledgments of the remaining
+     * segments so they are not replayed on the next start, and unmaps them.
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            running = false;
+            lock.notifyAll();
+        }
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // 刷盘线程仍在force时不能解除映射
+        boolean unmap = !flusher.isAlive();
+        synchronized (lock) {
+            for (Segment segment : segments) {
+                segment.closed = true;
+                try {
+                    segment.buffer.force();
+                } catch (RuntimeException e) {
+                    logger.warn("Failed to force journal segment {}: {}", segment.path, e.getMessage());
+                }
+                if (unmap) {
+                    unmap(segment.buffer);
+                }
+            }
+            segments.clear();
+        }
+        if (!unmap) {
+            logger.warn("Schedule journal flusher did not stop, leaving its segments mapped");
+        }
+        logger.info("Schedule journal closed");
+    }
+
+    @SuppressWarnings("deprecation")
+    private static void unmap(MappedByteBuffer buffer) {
+        // Netty 4.2未提供释放外部映射缓冲区的替代API
+        PlatformDependent.freeDirectBuffer(buffer);
+    }
+
+    private static final class Segment {
+        final Path path;
+        final MappedByteBuffer buffer;
+        final AtomicInteger live = new AtomicInteger();
+        int position;
+        boolean closed;
+
+        Segment(Path path, MappedByteBuffer buffer) {
+            this.path = path;
+            this.buffer = buffer;
+        }
+    }
+
+    /**
+     * A record in the journal.
+     */
+    static final class Entry {
+        private final Segment segment;
+        private final int position;
+        private final int length;
+        private final CompletableFuture<Void> durable;
+
+        Entry(Segment segment, int position, int length, CompletableFuture<Void> durable) {
+            this.segment = segment;
+            this.position = position;
+            this.length = length;
+            this.durable = durable;
+        }
+
+        CompletableFuture<Void> durable() {
+            return durable;
+        }
+
+        int length() {
+            return length;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package space.jamestang.simpletimer.client;
+
+/**
+ * Confirms that the server has accepted a scheduled task.
+ * @param requestId the correlation ID the task was sent with
+ * @param topic the topic of the task
+ * @param ackLatencyNanos time between sending the task and receiving the server's TASK_RECEIVED
+ */
+public record ScheduleReceipt(long requestId, String topic, long ackLatencyNanos) {
+}
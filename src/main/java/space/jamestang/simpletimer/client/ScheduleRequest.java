@@ -0,0 +1,18 @@
+package space.jamestang.simpletimer.client;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * A single task of a batch passed to {@link STClient#scheduleBatch(java.util.Collection)}.
+ * @param topic the topic to schedule the task on
+ * @param delay the delay in milliseconds, at least 1000
+ * @param payloadTransformer supplies the payload bytes of the task
+ */
+public record ScheduleRequest(String topic, long delay, Supplier<byte[]> payloadTransformer) {
+
+    public ScheduleRequest {
+        Objects.requireNonNull(topic, "Topic cannot be null");
+        Objects.requireNonNull(payloadTransformer, "PayloadTransformer cannot be null");
+    }
+}
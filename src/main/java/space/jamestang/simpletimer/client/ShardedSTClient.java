@@ -0,0 +1,272 @@
+package space.jamestang.simpletimer.client;
+
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.concurrent.Future;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import space.jamestang.simpletimer.client.handler.TaskHandlerPoll;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Spreads tasks over several SimpleTimer servers, each server holding a shard of the topics.
+ * <p>
+ * Every endpoint gets its own {@link STClient}, with its own connection pool, heartbeat and reconnect
+ * handling, all sharing one {@link STClientResources}. Tasks are routed by consistent hashing of their
+ * topic, or of a caller-supplied key, over a ring of virtual nodes, so adding or removing an endpoint
+ * only moves the keys of that endpoint. Triggered tasks from all shards reach the same handlers.
+ */
+public class ShardedSTClient {
+    private static final Logger logger = LoggerFactory.getLogger(ShardedSTClient.class);
+    public static final int DEFAULT_VIRTUAL_NODES = 160;
+
+    private final STClientConfig config;
+    private final STClientResources resources;
+    private final Map<Endpoint, STClient> shards = new ConcurrentHashMap<>();
+    private volatile ConsistentHashRing<Endpoint> ring;
+    private volatile boolean started;
+    private volatile boolean shutDown;
+
+    /**
+     * Creates a sharded client on private resources.
+     * @param config the configuration applied to every shard, its host and port are ignored
+     * @param endpoints the servers to shard over
+     */
+    public ShardedSTClient(STClientConfig config, List<Endpoint> endpoints) {
+        this(config, endpoints, STClientResources.builder().transport(config.getTransport()).build(),
+                DEFAULT_VIRTUAL_NODES, true);
+    }
+
+    /**
+     * Creates a sharded client on shared resources.
+     * @param virtualNodes points per endpoint on the hash ring, more points spread keys more evenly
+     */
+    public ShardedSTClient(STClientConfig config, List<Endpoint> endpoints, STClientResources resources,
+                           int virtualNodes) {
+        this(config, endpoints, resources, virtualNodes, false);
+    }
+
+    private ShardedSTClient(STClientConfig config, List<Endpoint> endpoints, STClientResources resources,
+                            int virtualNodes, boolean ownsResources) {
+        this.config = config;
+        if (!ownsResources) {
+            // 共享资源由创建者持有，这里额外持有一份直到关闭
+            resources.retain();
+        }
+        this.resources = resources;
+        try {
+            Objects.requireNonNull(endpoints, "Endpoints cannot be null");
+            if (endpoints.isEmpty()) {
+                throw new IllegalArgumentException("Endpoints cannot be empty");
+            }
+            if (virtualNodes <= 0) {
+                throw new IllegalArgumentException("Virtual nodes must be positive");
+            }
+            for (Endpoint endpoint : endpoints) {
+                shards.put(endpoint, resources.newClient(config.forEndpoint(endpoint)));
+            }
+            this.ring = new ConsistentHashRing<>(List.copyOf(shards.keySet()), virtualNodes);
+        } catch (RuntimeException e) {
+            // 已创建的分片和持有的资源引用随构造失败一并释放
+            shards.values().forEach(STClient::shutdown);
+            resources.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Starts all shards.
+     */
+    public synchronized void start() {
+        started = true;
+        logger.info("Starting sharded client over {} endpoint(s)", shards.size());
+        shards.values().forEach(STClient::start);
+    }
+
+    /**
+     * Adds an endpoint, taking over its share of the keys from the existing endpoints.
+     */
+    public synchronized void addEndpoint(Endpoint endpoint) {
+        if (shutDown) {
+            throw new IllegalStateException("Sharded client has been shut down");
+        }
+        if (shards.containsKey(endpoint)) {
+            return;
+        }
+        STClient client = resources.newClient(config.forEndpoint(endpoint));
+        shards.put(endpoint, client);
+        if (started) {
+            client.start();
+        }
+        ring = ring.with(endpoint);
+        logger.info("Added endpoint {} to the shard ring", endpoint);
+    }
+
+    /**
+     * Removes an endpoint, its keys move to the remaining endpoints. Its client is shut down,
+     * tasks it has not written yet fail.
+     */
+    public synchronized void removeEndpoint(Endpoint endpoint) {
+        if (!shards.containsKey(endpoint)) {
+            return;
+        }
+        if (shards.size() == 1) {
+            throw new IllegalStateException("Cannot remove the last endpoint");
+        }
+        ring = ring.without(endpoint);
+        shards.remove(endpoint).shutdown();
+        logger.info("Removed endpoint {} from the shard ring", endpoint);
+    }
+
+    /**
+     * @return the client of the shard owning {@code key}
+     */
+    public STClient clientFor(String key) {
+        Objects.requireNonNull(key, "Key cannot be null");
+        Endpoint endpoint = ring.route(key);
+        STClient client = endpoint != null ? shards.get(endpoint) : null;
+        if (client == null) {
+            throw new IllegalStateException("No shard available for key: " + key);
+        }
+        return client;
+    }
+
+    /**
+     * Schedules a task on the shard owning its topic.
+     */
+    public ChannelFuture scheduleAsync(String topic, long delay, Supplier<byte[]> payloadTransformer) {
+        return clientFor(topic).scheduleAsync(topic, delay, payloadTransformer);
+    }
+
+    /**
+     * Schedules a task on the shard owning {@code shardKey}, e.g. a tenant or entity ID.
+     */
+    public ChannelFuture scheduleAsync(String shardKey, String topic, long delay, Supplier<byte[]> payloadTransformer) {
+        return clientFor(shardKey).scheduleAsync(topic, delay, payloadTransformer);
+    }
+
+    public ChannelFuture scheduleAsync(String topic, long delay, PayloadWriter payloadWriter) {
+        return clientFor(topic).scheduleAsync(topic, delay, payloadWriter);
+    }
+
+    /**
+     * Schedules a task on the shard owning its topic, buffering it while that shard is disconnected.
+     * @see STClient#scheduleBuffered(String, long, Supplier)
+     */
+    public Future<Void> scheduleBuffered(String topic, long delay, Supplier<byte[]> payloadTransformer) {
+        return clientFor(topic).scheduleBuffered(topic, delay, payloadTransformer);
+    }
+
+    public CompletableFuture<ScheduleReceipt> scheduleAcked(String topic, long delay, Supplier<byte[]> payloadTransformer) {
+        return clientFor(topic).scheduleAcked(topic, delay, payloadTransformer);
+    }
+
+    public CompletableFuture<ScheduleReceipt> scheduleAcked(String shardKey, String topic, long delay,
+                                                            Supplier<byte[]> payloadTransformer) {
+        return clientFor(shardKey).scheduleAcked(topic, delay, payloadTransformer);
+    }
+
+    /**
+     * Schedules many tasks at once, grouped by the shard owning each topic. Every shard receives its group
+     * as one batch frame, see {@link STClient#scheduleBatch(Collection)}.
+     * @param requests the tasks to schedule
+     * @return the combined result: its future completes once every shard's frame has been written and fails
+     *         if any of them failed, the per-task results are in the order of {@code requests}
+     * @throws IllegalStateException if the shard of a group is not connected; the groups of other shards may
+     *         already have been written
+     */
+    public BatchScheduleResult scheduleBatch(Collection<ScheduleRequest> requests) {
+        Objects.requireNonNull(requests, "Requests cannot be null");
+        if (requests.isEmpty()) {
+            throw new IllegalArgumentException("Requests cannot be empty");
+        }
+        ConsistentHashRing<Endpoint> current = ring;
+        Map<Endpoint, List<Integer>> groups = new LinkedHashMap<>();
+        List<ScheduleRequest> ordered = List.copyOf(requests);
+        for (int i = 0; i < ordered.size(); i++) {
+            String topic = ordered.get(i).topic();
+            // topic为null的请求交给任一分片，由其校验失败
+            groups.computeIfAbsent(current.route(topic != null ? topic : ""), e -> new ArrayList<>()).add(i);
+        }
+
+        ChannelFuture[] results = new ChannelFuture[ordered.size()];
+        List<ChannelFuture> frames = new ArrayList<>(groups.size());
+        int accepted = 0;
+        for (Map.Entry<Endpoint, List<Integer>> group : groups.entrySet()) {
+            STClient client = shards.get(group.getKey());
+            if (client == null) {
+                throw new IllegalStateException("No shard available for endpoint: " + group.getKey());
+            }
+            List<ScheduleRequest> tasks = group.getValue().stream().map(ordered::get).toList();
+            BatchScheduleResult result = client.scheduleBatch(tasks);
+            for (int i = 0; i < tasks.size(); i++) {
+                results[group.getValue().get(i)] = result.results().get(i);
+            }
+            frames.add(result.future());
+            accepted += result.acceptedCount();
+        }
+
+        ChannelPromise combined = frames.get(0).channel().newPromise();
+        AtomicInteger remaining = new AtomicInteger(frames.size());
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        for (ChannelFuture frame : frames) {
+            frame.addListener((ChannelFuture f) -> {
+                if (!f.isSuccess()) {
+                    failure.compareAndSet(null, f.cause());
+                }
+                if (remaining.decrementAndGet() == 0) {
+                    if (failure.get() != null) {
+                        combined.tryFailure(failure.get());
+                    } else {
+                        combined.trySuccess();
+                    }
+                }
+            });
+        }
+        return new BatchScheduleResult(combined, List.of(results), accepted);
+    }
+
+    /**
+     * @return whether every shard is connected
+     */
+    public boolean isConnected() {
+        return shards.values().stream().allMatch(STClient::isConnected);
+    }
+
+    /**
+     * @return the registry holding the handlers of the triggered tasks of every shard
+     */
+    public TaskHandlerPoll handlers() {
+        return config.getHandlers();
+    }
+
+    /**
+     * @return the clients by endpoint, e.g. to read their metrics
+     */
+    public Map<Endpoint, STClient> shards() {
+        return Collections.unmodifiableMap(shards);
+    }
+
+    public synchronized void shutdown() {
+        if (shutDown) {
+            return;
+        }
+        shutDown = true;
+        logger.info("Shutting down sharded client...");
+        shards.values().forEach(STClient::shutdown);
+        // 各分片持有自己的引用，全部关闭后资源才真正释放
+        resources.release();
+    }
+}
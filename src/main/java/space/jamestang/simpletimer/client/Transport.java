@@ -0,0 +1,92 @@
+package space.jamestang.simpletimer.client;
+
+import io.netty.channel.ChannelOption;
+import io.netty.channel.IoHandlerFactory;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollIoHandler;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioIoHandler;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.channel.uring.IoUring;
+import io.netty.channel.uring.IoUringChannelOption;
+import io.netty.channel.uring.IoUringIoHandler;
+import io.netty.channel.uring.IoUringSocketChannel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The network transport used by STClient.
+ * Native transports are only usable on Linux with the matching native library on the classpath,
+ * {@link #resolve()} falls back to NIO when they are not available.
+ */
+public enum Transport {
+    /** Picks EPOLL when available, NIO otherwise. */
+    AUTO,
+    NIO,
+    EPOLL,
+    IO_URING;
+
+    private static final Logger logger = LoggerFactory.getLogger(Transport.class);
+
+    /**
+     * @return whether this transport can be used on the current platform
+     */
+    public boolean isAvailable() {
+        try {
+            return switch (this) {
+                case AUTO, NIO -> true;
+                case EPOLL -> Epoll.isAvailable();
+                case IO_URING -> IoUring.isAvailable();
+            };
+        } catch (Throwable t) {
+            // 原生传输的类或库缺失
+            return false;
+        }
+    }
+
+    /**
+     * Resolves this choice to a concrete, available transport.
+     * @return the transport to use, never {@link #AUTO}
+     */
+    public Transport resolve() {
+        if (this == AUTO) {
+            return EPOLL.isAvailable() ? EPOLL : NIO;
+        }
+        if (!isAvailable()) {
+            logger.warn("Transport {} is not available on this platform, falling back to NIO", this);
+            return NIO;
+        }
+        return this;
+    }
+
+    // 以下方法只在已解析的传输上调用，由 STClientResources 解析一次
+
+    IoHandlerFactory ioHandlerFactory() {
+        return switch (this) {
+            case EPOLL -> EpollIoHandler.newFactory();
+            case IO_URING -> IoUringIoHandler.newFactory();
+            default -> NioIoHandler.newFactory();
+        };
+    }
+
+    Class<? extends SocketChannel> socketChannelClass() {
+        return switch (this) {
+            case EPOLL -> EpollSocketChannel.class;
+            case IO_URING -> IoUringSocketChannel.class;
+            default -> NioSocketChannel.class;
+        };
+    }
+
+    /**
+     * @return the TCP_QUICKACK option of this transport, or null if it is not supported
+     */
+    ChannelOption<Boolean> tcpQuickAckOption() {
+        return switch (this) {
+            case EPOLL -> EpollChannelOption.TCP_QUICKACK;
+            case IO_URING -> IoUringChannelOption.TCP_QUICKACK;
+            default -> null;
+        };
+    }
+}
@@ -0,0 +1,16 @@
+package space.jamestang.simpletimer.client;
+
+import io.netty.channel.Channel;
+
+/**
+ * Notified when a connection's outbound buffer crosses the configured write buffer watermarks.
+ * Called on the channel's event loop, implementations must not block.
+ */
+@FunctionalInterface
+public interface WritabilityListener {
+    /**
+     * @param channel the connection whose writability changed
+     * @param writable false once the high watermark is exceeded, true again below the low watermark
+     */
+    void onWritabilityChanged(Channel channel, boolean writable);
+}
@@ -0,0 +1,30 @@
+package space.jamestang.simpletimer.client.compression;
+
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+
+/**
+ * Compresses task payloads. Each connection gets its own instance, which is only used from the
+ * connection's event loop, so implementations may keep reusable native state between calls.
+ */
+public interface CompressionCodec extends AutoCloseable {
+
+    /**
+     * Compresses the remaining bytes of {@code src} into {@code dst}.
+     * @return false if the compressed form does not fit into the remaining space of {@code dst},
+     * in which case the payload is sent uncompressed
+     */
+    boolean compress(ByteBuffer src, ByteBuffer dst);
+
+    /**
+     * Decompresses the remaining bytes of {@code src}, filling exactly the remaining space of {@code dst}.
+     * @throws DataFormatException if the data is corrupt or does not decompress to the expected size
+     */
+    void decompress(ByteBuffer src, ByteBuffer dst) throws DataFormatException;
+
+    /**
+     * Frees the codec's native resources, called when its connection is closed.
+     */
+    @Override
+    void close();
+}
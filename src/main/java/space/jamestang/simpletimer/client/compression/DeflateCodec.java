@@ -0,0 +1,61 @@
+package space.jamestang.simpletimer.client.compression;
+
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * {@link CompressionCodec} based on the JDK's zlib {@link Deflater} and {@link Inflater}.
+ * One deflater and one inflater are created per connection and reset for every payload,
+ * so no native zlib stream is allocated per message.
+ */
+public class DeflateCodec implements CompressionCodec {
+    private final Deflater deflater;
+    private final Inflater inflater = new Inflater();
+
+    /**
+     * Creates a codec favouring speed over ratio, as payloads are compressed on the I/O thread.
+     */
+    public DeflateCodec() {
+        this(Deflater.BEST_SPEED);
+    }
+
+    /**
+     * @param level the compression level, 0-9 or {@link Deflater#DEFAULT_COMPRESSION}
+     */
+    public DeflateCodec(int level) {
+        this.deflater = new Deflater(level);
+    }
+
+    @Override
+    public boolean compress(ByteBuffer src, ByteBuffer dst) {
+        deflater.reset();
+        deflater.setInput(src);
+        deflater.finish();
+        while (!deflater.finished() && dst.hasRemaining()) {
+            deflater.deflate(dst);
+        }
+        return deflater.finished();
+    }
+
+    @Override
+    public void decompress(ByteBuffer src, ByteBuffer dst) throws DataFormatException {
+        inflater.reset();
+        inflater.setInput(src);
+        while (!inflater.finished()) {
+            if (inflater.inflate(dst) == 0 && (inflater.needsInput() || inflater.needsDictionary() || !dst.hasRemaining())) {
+                throw new DataFormatException("Compressed payload is truncated or larger than announced");
+            }
+        }
+        if (dst.hasRemaining()) {
+            throw new DataFormatException("Compressed payload is smaller than announced");
+        }
+    }
+
+    @Override
+    public void close() {
+        deflater.end();
+        inflater.end();
+    }
+}
@@ -0,0 +1,134 @@
+package space.jamestang.simpletimer.client.handler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import space.jamestang.simpletimer.client.network.Message;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects the triggered tasks of one topic until the batch is full or the linger time has passed,
+ * then hands the batch to a {@link BatchTaskTriggeredHandler}.
+ */
+class BatchAccumulator {
+    private static final Logger logger = LoggerFactory.getLogger(BatchAccumulator.class);
+
+    private final String topic;
+    private final BatchTaskTriggeredHandler handler;
+    private final int maxBatchSize;
+    private final long lingerMillis;
+    private final ScheduledExecutorService scheduler;
+
+    private List<Message> buffer;
+    private ScheduledFuture<?> lingerTask;
+    private HandlerContext lingerContext;
+
+    BatchAccumulator(String topic, BatchTaskTriggeredHandler handler, int maxBatchSize, long lingerMillis,
+                     ScheduledExecutorService scheduler) {
+        this.topic = topic;
+        this.handler = handler;
+        this.maxBatchSize = maxBatchSize;
+        this.lingerMillis = lingerMillis;
+        this.scheduler = scheduler;
+        this.buffer = new ArrayList<>(maxBatchSize);
+    }
+
+    /**
+     * Adds a message, delivering the batch on the calling thread once it is full.
+     * @param context records the run of the handler; if the batch started by this message lingers, the context
+     *                also runs its delivery. Null to deliver on a virtual thread without metrics
+     */
+    void add(Message msg, HandlerContext context) {
+        List<Message> full = null;
+        HandlerContext fullContext = null;
+        synchronized (this) {
+            buffer.add(msg);
+            if (buffer.size() >= maxBatchSize) {
+                fullContext = buffer.size() == 1 ? context : lingerContext;
+                full = takeBatch();
+            } else if (buffer.size() == 1) {
+                lingerContext = context;
+                lingerTask = scheduler.schedule(this::lingerExpired, lingerMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (full != null) {
+            deliver(full, fullContext);
+        }
+    }
+
+    /**
+     * Delivers whatever is buffered right now on the calling thread.
+     */
+    void flush() {
+        List<Message> batch;
+        HandlerContext context;
+        synchronized (this) {
+            context = lingerContext;
+            batch = buffer.isEmpty() ? null : takeBatch();
+        }
+        if (batch != null) {
+            deliver(batch, context);
+        }
+    }
+
+    private void lingerExpired() {
+        List<Message> batch;
+        HandlerContext context;
+        synchronized (this) {
+            context = lingerContext;
+            batch = buffer.isEmpty() ? null : takeBatch();
+        }
+        if (batch == null) {
+            return;
+        }
+        // 不在定时线程上执行处理器，避免慢处理器拖延其他topic的批次
+        if (context == null) {
+            Thread.startVirtualThread(() -> deliver(batch, null));
+            return;
+        }
+        try {
+            context.execute(batch.get(0).topic(), () -> deliver(batch, context));
+        } catch (RejectedExecutionException e) {
+            logger.warn("Handler executor rejected batch of {} messages for topic '{}': {}", batch.size(), topic, e.getMessage());
+            batch.forEach(Message::release);
+        }
+    }
+
+    private List<Message> takeBatch() {
+        List<Message> batch = buffer;
+        buffer = new ArrayList<>(maxBatchSize);
+        lingerContext = null;
+        if (lingerTask != null) {
+            lingerTask.cancel(false);
+            lingerTask = null;
+        }
+        return batch;
+    }
+
+    /**
+     * Runs the handler on a batch, recording one handler run per message in the context.
+     */
+    private void deliver(List<Message> batch, HandlerContext context) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            handler.handle(batch);
+            success = true;
+            logger.debug("Successfully handled batch of {} messages for topic: {}", batch.size(), topic);
+        } catch (Exception e) {
+            logger.error("Error handling batch of {} messages for topic '{}': {}", batch.size(), topic, e.getMessage(), e);
+        } finally {
+            for (Message msg : batch) {
+                if (context != null) {
+                    context.handled(msg.topic(), start, success);
+                }
+                msg.release();
+            }
+        }
+    }
+}
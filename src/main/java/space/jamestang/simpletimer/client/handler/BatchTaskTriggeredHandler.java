@@ -0,0 +1,14 @@
+package space.jamestang.simpletimer.client.handler;
+
+import space.jamestang.simpletimer.client.network.Message;
+
+import java.util.List;
+
+/**
+ * Receives the triggered tasks of a topic in batches, see
+ * {@link TaskHandlerPoll#registerBatchHandler(String, BatchTaskTriggeredHandler, int, long)}.
+ */
+public interface BatchTaskTriggeredHandler {
+
+    void handle(List<Message> batch);
+}
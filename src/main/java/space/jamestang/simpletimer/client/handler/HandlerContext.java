@@ -0,0 +1,18 @@
+package space.jamestang.simpletimer.client.handler;
+
+/**
+ * What the dispatcher running a handler provides to it: the executor of lingered batches and the metrics of handler runs.
+ */
+interface HandlerContext {
+
+    /**
+     * Runs a handler task of a topic on the dispatcher's handler executor, within the limits of the topic.
+     * @throws java.util.concurrent.RejectedExecutionException if the handler executor rejected the task
+     */
+    void execute(String topic, Runnable task);
+
+    /**
+     * Records one run of a handler for a message of a topic.
+     */
+    void handled(String topic, long startNanos, boolean success);
+}
@@ -0,0 +1,271 @@
+package space.jamestang.simpletimer.client.handler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import space.jamestang.simpletimer.client.metrics.STClientMetrics;
+import space.jamestang.simpletimer.client.network.Message;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Moves triggered tasks off the I/O thread and onto a handler executor.
+ * <p>
+ * By default every message runs on its own virtual thread. In ordered mode messages of the same topic
+ * run one after another on a striped serial queue, otherwise an optional per-topic concurrency limit
+ * caps how many handlers of one topic run at once. Limiters only exist while a topic has handlers running,
+ * so topics that carry IDs do not accumulate state.
+ */
+public class TaskDispatcher {
+    private static final Logger logger = LoggerFactory.getLogger(TaskDispatcher.class);
+    private static final int STRIPES = 64;
+
+    private final TaskHandlerPoll handlers;
+    private final Executor executor;
+    private final boolean ownsExecutor;
+    private final SerialExecutor[] stripes;
+    private final int maxConcurrencyPerTopic;
+    private final STClientMetrics metrics;
+    private final ConcurrentMap<String, TopicLimiter> limiters = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, TopicPublisher> publishers = new ConcurrentHashMap<>();
+    private final HandlerContext context = new HandlerContext() {
+        @Override
+        public void execute(String topic, Runnable task) {
+            TaskDispatcher.this.execute(topic, task);
+        }
+
+        @Override
+        public void handled(String topic, long startNanos, boolean success) {
+            metrics.handled(topic, startNanos, success);
+        }
+    };
+
+    /**
+     * @param handlers the registry resolving handlers of triggered tasks
+     * @param executor the executor running handlers, null for a virtual thread per task
+     * @param ordered whether messages of the same topic are handled in arrival order
+     * @param maxConcurrencyPerTopic max handlers of one topic running at once, 0 for no limit; ignored in ordered mode
+     */
+    public TaskDispatcher(TaskHandlerPoll handlers, Executor executor, boolean ordered, int maxConcurrencyPerTopic) {
+        this(handlers, executor, ordered, maxConcurrencyPerTopic, new STClientMetrics());
+    }
+
+    /**
+     * @param metrics records the run time of handlers per topic
+     */
+    public TaskDispatcher(TaskHandlerPoll handlers, Executor executor, boolean ordered, int maxConcurrencyPerTopic,
+                          STClientMetrics metrics) {
+        this.handlers = handlers;
+        this.metrics = metrics;
+        this.ownsExecutor = executor == null;
+        this.executor = executor != null ? executor : Executors.newVirtualThreadPerTaskExecutor();
+        this.maxConcurrencyPerTopic = maxConcurrencyPerTopic;
+        if (ordered) {
+            stripes = new SerialExecutor[STRIPES];
+            for (int i = 0; i < STRIPES; i++) {
+                stripes[i] = new SerialExecutor(this.executor);
+            }
+        } else {
+            stripes = null;
+        }
+    }
+
+    /**
+     * Hands a triggered message over to its handler without blocking the caller.
+     * @param msg the triggered message
+     */
+    public void dispatch(Message msg) {
+        TopicPublisher publisher = publishers.get(msg.topic());
+        if (publisher != null && publisher.offer(msg)) {
+            return;
+        }
+
+        String topic = msg.topic();
+        Runnable task = () -> handlers.tryHandle(msg, context);
+        try {
+            execute(topic, task);
+        } catch (RejectedExecutionException e) {
+            logger.warn("Handler executor rejected message for topic '{}': {}", msg.topic(), e.getMessage());
+            msg.release();
+        }
+    }
+
+    /**
+     * Runs a handler task of a topic on the handler executor, within the ordering or concurrency limit of the topic.
+     * @throws RejectedExecutionException if the handler executor rejected the task
+     */
+    private void execute(String topic, Runnable task) {
+        if (stripes != null) {
+            stripes[stripeOf(topic)].execute(task);
+        } else if (maxConcurrencyPerTopic > 0) {
+            // 空闲的限流器会被移除，拿到已退役的实例时重新获取
+            while (!limiters.computeIfAbsent(topic, TopicLimiter::new).tryExecute(task)) {
+                Thread.onSpinWait();
+            }
+        } else {
+            executor.execute(task);
+        }
+    }
+
+    /**
+     * Returns the publisher of a topic, creating it on first use. Once a topic has a publisher its
+     * triggered tasks go to the publisher instead of the registered handlers.
+     * @param topic the topic to publish
+     * @param capacity messages buffered before reads are paused
+     * @param pauseListener notified when reads need to be paused or resumed
+     * @return the publisher of the topic
+     */
+    public TopicPublisher publisher(String topic, int capacity, TopicPublisher.PauseListener pauseListener) {
+        return publishers.computeIfAbsent(topic, t -> new TopicPublisher(t, capacity, executor, pauseListener));
+    }
+
+    /**
+     * Stops publishing a topic, its triggered tasks go to the registered handlers again.
+     * The subscriber, if any, is completed and messages still buffered are handed to the handlers.
+     * @return false if the topic had no publisher
+     */
+    public boolean removePublisher(String topic) {
+        TopicPublisher publisher = publishers.remove(topic);
+        if (publisher == null) {
+            return false;
+        }
+        for (Message msg : publisher.close()) {
+            dispatch(msg);
+        }
+        return true;
+    }
+
+    /**
+     * Shuts down the handler executor if it was created by this dispatcher.
+     */
+    public void shutdown() {
+        if (ownsExecutor && executor instanceof ExecutorService service) {
+            service.shutdown();
+        }
+    }
+
+    /**
+     * @return the number of topics with a concurrency limiter, i.e. with handlers running or waiting
+     */
+    int activeLimiters() {
+        return limiters.size();
+    }
+
+    private static int stripeOf(String topic) {
+        int h = topic.hashCode();
+        return (h ^ (h >>> 16)) & (STRIPES - 1);
+    }
+
+    /**
+     * Runs submitted tasks one at a time, in submission order, on the underlying executor.
+     */
+    private static final class SerialExecutor implements Executor {
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean running = new AtomicBoolean(false);
+        private final Executor executor;
+
+        SerialExecutor(Executor executor) {
+            this.executor = executor;
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.offer(task);
+            if (running.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    running.set(false);
+                    throw e;
+                }
+            }
+        }
+
+        private void drain() {
+            do {
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    runSafely(task);
+                }
+                running.set(false);
+                // 释放标记后可能有新任务入队
+            } while (!tasks.isEmpty() && running.compareAndSet(false, true));
+        }
+    }
+
+    /**
+     * Limits how many tasks of one topic run concurrently, extra tasks wait in a queue.
+     * Once nothing of its topic runs any more the limiter retires and removes itself from the map.
+     */
+    private final class TopicLimiter {
+        private final String topic;
+        private final ArrayDeque<Runnable> pending = new ArrayDeque<>();
+        private int running;
+        private boolean retired;
+
+        TopicLimiter(String topic) {
+            this.topic = topic;
+        }
+
+        /**
+         * @return false if the limiter already retired and the task was not accepted
+         */
+        boolean tryExecute(Runnable task) {
+            synchronized (this) {
+                if (retired) {
+                    return false;
+                }
+                if (running >= maxConcurrencyPerTopic) {
+                    pending.add(task);
+                    return true;
+                }
+                running++;
+            }
+            submit(task);
+            return true;
+        }
+
+        private void submit(Runnable task) {
+            try {
+                executor.execute(() -> {
+                    runSafely(task);
+                    next();
+                });
+            } catch (RejectedExecutionException e) {
+                next();
+                throw e;
+            }
+        }
+
+        private void next() {
+            Runnable task;
+            synchronized (this) {
+                task = pending.poll();
+                if (task == null) {
+                    if (--running == 0) {
+                        retired = true;
+                        limiters.remove(topic, this);
+                    }
+                    return;
+                }
+            }
+            submit(task);
+        }
+    }
+
+    private static void runSafely(Runnable task) {
+        try {
+            task.run();
+        } catch (Throwable t) {
+            logger.error("Unexpected error in handler task: {}", t.getMessage(), t);
+        }
+    }
+}
@@ -1,21 +1,49 @@
 package space.jamestang.simpletimer.client.handler;
 
+import space.jamestang.simpletimer.client.jfr.HandlerEvent;
 import space.jamestang.simpletimer.client.network.Message;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import io.netty.util.concurrent.DefaultThreadFactory;
+
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 
+/**
+ * Registry of the handlers of triggered tasks.
+ * <p>
+ * Each client has its own registry unless one is passed to
+ * {@link space.jamestang.simpletimer.client.Builder#handlers(TaskHandlerPoll)}, {@link #INSTANCE} is a JVM-wide
+ * registry for clients that opt into sharing it. Topics may be registered as patterns with {@code *} standing for
+ * one {@code .} separated segment and {@code #} for any number of segments, see {@link TopicTrie} for the
+ * matching rules. The route resolved for a topic is cached, so after its first message a topic is handled
+ * with a single hash lookup; registering or unregistering a handler drops the cache.
+ */
 public class TaskHandlerPoll {
     public static final TaskHandlerPoll INSTANCE = new TaskHandlerPoll();
     
     private static final Logger logger = LoggerFactory.getLogger(TaskHandlerPoll.class);
+    // 缓存的topic数量上限，超出后未缓存的topic每次都查前缀树
+    private static final int MAX_RESOLVED_ROUTES = 65536;
+    private static final Route NO_ROUTE = new Route(null, null);
+
+    private final ConcurrentMap<String, Route> routes = new ConcurrentHashMap<>();
+    private final TopicTrie<Route> trie = new TopicTrie<>();
+    private volatile ConcurrentMap<String, Route> resolved = new ConcurrentHashMap<>();
 
-    private final ConcurrentMap<String, TaskTriggeredHandler> handlers = new ConcurrentHashMap<>();
+    /**
+     * Creates an empty registry.
+     */
+    public TaskHandlerPoll() {
+    }
 
-    private TaskHandlerPoll() {
-        // Private constructor to prevent instantiation
+    /**
+     * The handler or batch accumulator registered for a topic or pattern.
+     */
+    private record Route(TaskTriggeredHandler handler, BatchAccumulator batch) {
     }
 
     public void registerHandler(String topic, TaskTriggeredHandler handler) {
@@ -26,20 +54,120 @@ public class TaskHandlerPoll {
             throw new IllegalArgumentException("Handler must not be null");
         }
         
-        TaskTriggeredHandler oldHandler = handlers.put(topic, handler);
-        if (oldHandler != null) {
+        Route old = route(topic, new Route(handler, null));
+        if (old != null && old.batch() != null) {
+            old.batch().flush();
+        }
+        if (old != null) {
             logger.warn("Replaced existing handler for topic: {}", topic);
         } else {
             logger.info("Registered handler for topic: {}", topic);
         }
     }
     
+    /**
+     * Registers a handler receiving the triggered tasks of a topic in batches.
+     * A batch is delivered once it holds {@code maxBatchSize} messages or {@code lingerMillis}
+     * have passed since its first message arrived. Replaces any handler registered for the topic.
+     * @param topic the topic to handle
+     * @param handler the batch handler
+     * @param maxBatchSize max messages per batch
+     * @param lingerMillis max time in milliseconds a message waits for its batch to fill up
+     */
+    public void registerBatchHandler(String topic, BatchTaskTriggeredHandler handler, int maxBatchSize, long lingerMillis) {
+        if (topic == null || topic.trim().isEmpty()) {
+            throw new IllegalArgumentException("Topic must not be null or empty");
+        }
+        if (handler == null) {
+            throw new IllegalArgumentException("Handler must not be null");
+        }
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Max batch size must be positive");
+        }
+        if (lingerMillis <= 0) {
+            throw new IllegalArgumentException("Linger time must be positive");
+        }
+
+        var accumulator = new BatchAccumulator(topic, handler, maxBatchSize, lingerMillis, lingerScheduler());
+        Route old = route(topic, new Route(null, accumulator));
+        if (old != null && old.batch() != null) {
+            old.batch().flush();
+        }
+        if (old != null) {
+            logger.warn("Replaced existing handler for topic: {}", topic);
+        } else {
+            logger.info("Registered batch handler for topic: {}", topic);
+        }
+    }
+
+    /**
+     * Stores or, with a null route, removes the route of a topic or pattern and drops the resolved routes.
+     * @return the previous route, or null
+     */
+    private synchronized Route route(String topic, Route route) {
+        Route old;
+        if (route != null) {
+            old = routes.put(topic, route);
+            trie.put(topic, route);
+        } else {
+            old = routes.remove(topic);
+            trie.remove(topic);
+        }
+        // 先改前缀树再换缓存，并发查找写入旧缓存的结果随之丢弃
+        resolved = new ConcurrentHashMap<>();
+        return old;
+    }
+
+    /**
+     * @return the route of the most specific registration matching the topic, or null
+     */
+    private Route resolve(String topic) {
+        ConcurrentMap<String, Route> cache = resolved;
+        Route route = cache.get(topic);
+        if (route == null) {
+            route = trie.match(topic);
+            if (route == null) {
+                route = NO_ROUTE;
+            }
+            if (cache.size() < MAX_RESOLVED_ROUTES) {
+                cache.put(topic, route);
+            }
+        }
+        return route == NO_ROUTE ? null : route;
+    }
+
+    private static ScheduledExecutorService lingerScheduler() {
+        return LingerScheduler.INSTANCE;
+    }
+
+    /**
+     * One daemon thread firing the linger timeouts of every registry in the JVM, started on first use.
+     * It only schedules, handlers run elsewhere, so per-client registries do not each need their own thread.
+     */
+    private static final class LingerScheduler {
+        static final ScheduledExecutorService INSTANCE = create();
+
+        private static ScheduledExecutorService create() {
+            var scheduler = new ScheduledThreadPoolExecutor(1, new DefaultThreadFactory("st-batch-linger", true));
+            // 批次提前攒满时取消的超时任务立即移出队列
+            scheduler.setRemoveOnCancelPolicy(true);
+            return scheduler;
+        }
+    }
+    
     public boolean unregisterHandler(String topic) {
         if (topic == null) {
             return false;
         }
         
-        TaskTriggeredHandler removed = handlers.remove(topic);
+        if (!routes.containsKey(topic)) {
+            return false;
+        }
+        Route removed = route(topic, null);
+        if (removed != null && removed.batch() != null) {
+            // 交付已缓存的消息
+            removed.batch().flush();
+        }
         if (removed != null) {
             logger.info("Unregistered handler for topic: {}", topic);
             return true;
@@ -47,27 +175,78 @@ public class TaskHandlerPoll {
         return false;
     }
     
+    /**
+     * @return true if a handler is registered for the topic or for a pattern matching it
+     */
     public boolean hasHandler(String topic) {
-        return topic != null && handlers.containsKey(topic);
+        return topic != null && resolve(topic) != null;
     }
 
+    /**
+     * Hands a triggered message to the handler of its topic.
+     * Zero-copy messages are released once the handler returns, or once the batch they were added to
+     * has been handled, handlers that keep the content beyond that must {@code retain()} it.
+     * @param msg the triggered message
+     */
     public void handle(Message msg){
+        tryHandle(msg, null);
+    }
+
+    /**
+     * Same as {@link #handle(Message)}, recording the run of the handler in the context.
+     * @param context of the dispatcher running the handler, null to deliver lingered batches on a virtual thread
+     *                without recording metrics
+     * @return false if the handler threw or no handler is registered, true once a batched message is buffered
+     */
+    boolean tryHandle(Message msg, HandlerContext context) {
         if (msg == null || msg.topic() == null) {
             logger.error("Message and its topic must not be null");
-            return;
+            if (msg != null) {
+                msg.release();
+            }
+            return false;
         }
 
-        TaskTriggeredHandler handler = handlers.get(msg.topic());
-        if (handler != null) {
+        Route route = resolve(msg.topic());
+        if (route != null && route.batch() != null) {
+            route.batch().add(msg, context);
+            return true;
+        }
+
+        if (route != null) {
+            TaskTriggeredHandler handler = route.handler();
+            HandlerEvent event = new HandlerEvent();
+            event.begin();
+            long start = System.nanoTime();
+            boolean success = false;
             try {
                 handler.handle(msg);
                 logger.debug("Successfully handled message for topic: {}", msg.topic());
+                success = true;
+                return true;
             } catch (Exception e) {
                 logger.error("Error handling message for topic '{}': {}", msg.topic(), e.getMessage(), e);
+                return false;
+            } finally {
+                if (event.shouldCommit()) {
+                    event.topic = msg.topic();
+                    event.payloadSize = msg.payloadLength();
+                    event.success = success;
+                    event.commit();
+                }
+                if (context != null) {
+                    context.handled(msg.topic(), start, success);
+                }
+                msg.release();
             }
         } else {
             logger.warn("No handler registered for topic: {}. Available topics: {}", 
-                       msg.topic(), handlers.keySet());
+                       msg.topic(), routes.keySet());
+            if (context != null) {
+                context.handled(msg.topic(), System.nanoTime(), false);
+            }
+            msg.release();
+            return false;
         }
     }
 }
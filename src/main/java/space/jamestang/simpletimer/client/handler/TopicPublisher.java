@@ -0,0 +1,211 @@
+package space.jamestang.simpletimer.client.handler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import space.jamestang.simpletimer.client.network.Message;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the triggered tasks of one topic to a single {@link Flow.Subscriber}.
+ * <p>
+ * Messages are buffered until the subscriber requests them. Once {@code capacity} messages are buffered
+ * the pause listener is told to stop reading from the server, and reading resumes when the buffer drains
+ * down to half of it, so a slow subscriber pushes back over TCP instead of filling the heap.
+ * After a subscriber cancels, a new one may subscribe and receives the messages buffered meanwhile.
+ * Subscribers own the messages they receive and must release zero-copy messages themselves.
+ */
+public class TopicPublisher implements Flow.Publisher<Message> {
+    private static final Logger logger = LoggerFactory.getLogger(TopicPublisher.class);
+
+    /**
+     * Notified when the publisher needs reading from the server to be paused or resumed.
+     */
+    public interface PauseListener {
+        void onPauseChanged(boolean paused);
+    }
+
+    private final String topic;
+    private final int capacity;
+    private final int resumeThreshold;
+    private final Executor executor;
+    private final PauseListener pauseListener;
+
+    private final Queue<Message> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger buffered = new AtomicInteger();
+    private final AtomicLong demand = new AtomicLong();
+    private final AtomicInteger wip = new AtomicInteger();
+    private final AtomicBoolean paused = new AtomicBoolean(false);
+    private volatile TopicSubscription subscription;
+    private boolean closed;
+
+    TopicPublisher(String topic, int capacity, Executor executor, PauseListener pauseListener) {
+        this.topic = topic;
+        this.capacity = capacity;
+        this.resumeThreshold = capacity / 2;
+        this.executor = executor;
+        this.pauseListener = pauseListener;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super Message> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("Subscriber cannot be null");
+        }
+        var newSubscription = new TopicSubscription(subscriber);
+        synchronized (this) {
+            if (subscription != null) {
+                subscriber.onSubscribe(new TopicSubscription(subscriber));
+                subscriber.onError(new IllegalStateException("Topic '" + topic + "' already has a subscriber"));
+                return;
+            }
+            subscription = newSubscription;
+        }
+        subscriber.onSubscribe(newSubscription);
+        drain();
+    }
+
+    public String topic() {
+        return topic;
+    }
+
+    /**
+     * @return the number of messages waiting for demand
+     */
+    public int buffered() {
+        return buffered.get();
+    }
+
+    /**
+     * Buffers a triggered message, called on the I/O thread.
+     * @return false if the publisher was closed and the message not taken
+     */
+    boolean offer(Message msg) {
+        synchronized (this) {
+            if (closed) {
+                return false;
+            }
+            queue.offer(msg);
+        }
+        if (buffered.incrementAndGet() >= capacity && paused.compareAndSet(false, true)) {
+            logger.debug("Publisher of topic '{}' is full, pausing reads", topic);
+            pauseListener.onPauseChanged(true);
+        }
+        drain();
+        return true;
+    }
+
+    /**
+     * Completes the subscriber, resumes reads if they were paused and hands back the messages still buffered.
+     */
+    List<Message> close() {
+        TopicSubscription current;
+        synchronized (this) {
+            closed = true;
+            current = subscription;
+            subscription = null;
+        }
+        List<Message> remaining = new ArrayList<>();
+        Message msg;
+        while ((msg = queue.poll()) != null) {
+            remaining.add(msg);
+            buffered.decrementAndGet();
+        }
+        if (paused.compareAndSet(true, false)) {
+            pauseListener.onPauseChanged(false);
+        }
+        if (current != null) {
+            current.subscriber.onComplete();
+        }
+        return remaining;
+    }
+
+    private void drain() {
+        if (wip.getAndIncrement() == 0) {
+            try {
+                executor.execute(this::drainLoop);
+            } catch (RejectedExecutionException e) {
+                wip.set(0);
+                logger.warn("Executor rejected delivery for topic '{}': {}", topic, e.getMessage());
+            }
+        }
+    }
+
+    private void drainLoop() {
+        int missed = 1;
+        do {
+            TopicSubscription current = subscription;
+            if (current != null) {
+                long requested = demand.get();
+                long emitted = 0;
+                Message msg;
+                while (emitted < requested && current == subscription && (msg = queue.poll()) != null) {
+                    emitted++;
+                    onDequeued();
+                    try {
+                        current.subscriber.onNext(msg);
+                    } catch (Throwable t) {
+                        logger.error("Subscriber of topic '{}' failed: {}", topic, t.getMessage(), t);
+                        current.cancel();
+                        current.subscriber.onError(t);
+                    }
+                }
+                if (emitted > 0 && requested != Long.MAX_VALUE) {
+                    demand.addAndGet(-emitted);
+                }
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void onDequeued() {
+        if (buffered.decrementAndGet() <= resumeThreshold && paused.compareAndSet(true, false)) {
+            logger.debug("Publisher of topic '{}' drained, resuming reads", topic);
+            pauseListener.onPauseChanged(false);
+        }
+    }
+
+    private final class TopicSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super Message> subscriber;
+
+        TopicSubscription(Flow.Subscriber<? super Message> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (subscription != this) {
+                return;
+            }
+            if (n <= 0) {
+                cancel();
+                subscriber.onError(new IllegalArgumentException("Requested demand must be positive, got " + n));
+                return;
+            }
+            demand.getAndAccumulate(n, (current, add) -> {
+                long sum = current + add;
+                return sum < 0 ? Long.MAX_VALUE : sum;
+            });
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (TopicPublisher.this) {
+                if (subscription == this) {
+                    subscription = null;
+                    demand.set(0);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package space.jamestang.simpletimer.client.handler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Trie of topic patterns split into {@code .} separated segments.
+ * <p>
+ * A segment {@code *} matches exactly one segment and {@code #} matches zero or more, any other segment
+ * only matches itself, so {@code order.*} matches {@code order.created} and {@code order.#} also matches
+ * {@code order} and {@code order.eu.created}. When several patterns match a topic the most specific one wins:
+ * literal segments before {@code *} before {@code #}, and {@code #} consuming as few segments as possible.
+ * <p>
+ * Lookups are lock-free, modifications are serialized on the trie.
+ */
+final class TopicTrie<V> {
+    static final String SINGLE = "*";
+    static final String MULTI = "#";
+
+    private final Node<V> root = new Node<>();
+
+    /**
+     * @return the value previously stored under the pattern, or null
+     */
+    synchronized V put(String pattern, V value) {
+        Node<V> node = root;
+        for (String segment : split(pattern)) {
+            node = node.children.computeIfAbsent(segment, s -> new Node<>());
+        }
+        V old = node.value;
+        node.value = value;
+        return old;
+    }
+
+    /**
+     * @return the value removed from the pattern, or null
+     */
+    synchronized V remove(String pattern) {
+        return remove(root, split(pattern), 0);
+    }
+
+    private static <V> V remove(Node<V> node, String[] segments, int index) {
+        if (index == segments.length) {
+            V old = node.value;
+            node.value = null;
+            return old;
+        }
+        Node<V> child = node.children.get(segments[index]);
+        if (child == null) {
+            return null;
+        }
+        V old = remove(child, segments, index + 1);
+        // 清理不再有值和子节点的分支
+        if (child.value == null && child.children.isEmpty()) {
+            node.children.remove(segments[index], child);
+        }
+        return old;
+    }
+
+    /**
+     * @return the value of the most specific pattern matching the topic, or null
+     */
+    V match(String topic) {
+        return match(root, split(topic), 0);
+    }
+
+    private static <V> V match(Node<V> node, String[] segments, int index) {
+        if (index == segments.length) {
+            V value = node.value;
+            if (value != null) {
+                return value;
+            }
+            Node<V> multi = node.children.get(MULTI);
+            return multi != null ? multi.value : null;
+        }
+
+        Node<V> literal = node.children.get(segments[index]);
+        if (literal != null) {
+            V value = match(literal, segments, index + 1);
+            if (value != null) {
+                return value;
+            }
+        }
+        Node<V> single = node.children.get(SINGLE);
+        if (single != null && single != literal) {
+            V value = match(single, segments, index + 1);
+            if (value != null) {
+                return value;
+            }
+        }
+        Node<V> multi = node.children.get(MULTI);
+        if (multi != null && multi != literal) {
+            for (int next = index; next <= segments.length; next++) {
+                V value = match(multi, segments, next);
+                if (value != null) {
+                    return value;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String[] split(String topic) {
+        List<String> segments = new ArrayList<>(4);
+        int start = 0;
+        int dot;
+        while ((dot = topic.indexOf('.', start)) >= 0) {
+            segments.add(topic.substring(start, dot));
+            start = dot + 1;
+        }
+        segments.add(topic.substring(start));
+        return segments.toArray(new String[0]);
+    }
+
+    private static final class Node<V> {
+        final ConcurrentMap<String, Node<V>> children = new ConcurrentHashMap<>();
+        volatile V value;
+    }
+}
@@ -0,0 +1,28 @@
+package space.jamestang.simpletimer.client.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Spans the decoding of one inbound frame.
+ */
+@Name("space.jamestang.simpletimer.Decode")
+@Label("Decode Frame")
+@Category({"SimpleTimer", "Network"})
+@Description("An inbound frame decoded into a message")
+@StackTrace(false)
+public class DecodeEvent extends jdk.jfr.Event {
+    @Label("Message Type")
+    public int type;
+
+    @Label("Topic")
+    public String topic;
+
+    @Label("Frame Size")
+    @DataAmount
+    public int frameSize;
+}
@@ -0,0 +1,23 @@
+package space.jamestang.simpletimer.client.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Spans the dispatch of one inbound message on the I/O thread.
+ */
+@Name("space.jamestang.simpletimer.Dispatch")
+@Label("Dispatch Message")
+@Category({"SimpleTimer", "Network"})
+@Description("An inbound message dispatched by type on the event loop")
+@StackTrace(false)
+public class DispatchEvent extends jdk.jfr.Event {
+    @Label("Message Type")
+    public int type;
+
+    @Label("Topic")
+    public String topic;
+}
@@ -0,0 +1,28 @@
+package space.jamestang.simpletimer.client.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Spans the run of a triggered task's handler.
+ */
+@Name("space.jamestang.simpletimer.Handler")
+@Label("Handle Triggered Task")
+@Category({"SimpleTimer", "Client"})
+@Description("A triggered task handed to its registered handler")
+@StackTrace(false)
+public class HandlerEvent extends jdk.jfr.Event {
+    @Label("Topic")
+    public String topic;
+
+    @Label("Payload Size")
+    @DataAmount
+    public int payloadSize;
+
+    @Label("Success")
+    public boolean success;
+}
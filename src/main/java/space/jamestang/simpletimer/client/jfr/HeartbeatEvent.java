@@ -0,0 +1,28 @@
+package space.jamestang.simpletimer.client.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Emitted when a heartbeat completes, with the PING to PONG round trip, or fails to be written.
+ */
+@Name("space.jamestang.simpletimer.Heartbeat")
+@Label("Heartbeat")
+@Category({"SimpleTimer", "Connection"})
+@Description("A heartbeat round trip or a failed heartbeat write")
+@StackTrace(false)
+public class HeartbeatEvent extends jdk.jfr.Event {
+    @Label("Channel")
+    public String channel;
+
+    @Label("Round Trip Time")
+    @Timespan
+    public long rtt;
+
+    @Label("Success")
+    public boolean success;
+}
@@ -0,0 +1,31 @@
+package space.jamestang.simpletimer.client.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Emitted when a pooled connection schedules a reconnect attempt.
+ */
+@Name("space.jamestang.simpletimer.Reconnect")
+@Label("Reconnect Scheduled")
+@Category({"SimpleTimer", "Connection"})
+@Description("A lost or failed connection scheduled its next attempt")
+@StackTrace(false)
+public class ReconnectEvent extends jdk.jfr.Event {
+    @Label("Connection")
+    public int connection;
+
+    @Label("Attempt")
+    public int attempt;
+
+    @Label("Backoff")
+    @Timespan(Timespan.MILLISECONDS)
+    public long backoff;
+
+    @Label("Remote Address")
+    public String remoteAddress;
+}
@@ -0,0 +1,33 @@
+package space.jamestang.simpletimer.client.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Spans a call to {@code STClient.scheduleAsync} until the task is handed to the connection or buffered.
+ */
+@Name("space.jamestang.simpletimer.Schedule")
+@Label("Schedule Task")
+@Category({"SimpleTimer", "Client"})
+@Description("A task scheduled through STClient")
+@StackTrace(false)
+public class ScheduleEvent extends jdk.jfr.Event {
+    @Label("Topic")
+    public String topic;
+
+    @Label("Payload Size")
+    @DataAmount
+    public int payloadSize;
+
+    @Label("Delay")
+    @Timespan(Timespan.MILLISECONDS)
+    public long delay;
+
+    @Label("Request ID")
+    public long requestId;
+}
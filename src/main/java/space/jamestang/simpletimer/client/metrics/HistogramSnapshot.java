@@ -0,0 +1,8 @@
+package space.jamestang.simpletimer.client.metrics;
+
+/**
+ * Point-in-time view of a {@link LatencyHistogram}, all values in nanoseconds.
+ */
+public record HistogramSnapshot(long count, double mean, long max, long p50, long p90, long p99, long p999) {
+    public static final HistogramSnapshot EMPTY = new HistogramSnapshot(0, 0, 0, 0, 0, 0, 0);
+}
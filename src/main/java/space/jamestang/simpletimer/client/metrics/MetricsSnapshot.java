@@ -0,0 +1,23 @@
+package space.jamestang.simpletimer.client.metrics;
+
+import java.util.Map;
+
+/**
+ * Point-in-time view of an {@link STClientMetrics}.
+ * @param scheduled tasks handed to the client for sending
+ * @param written tasks written to the socket
+ * @param acked TASK_RECEIVED acknowledgments received
+ * @param triggered TASK_TRIGGERED messages received
+ * @param failed tasks whose write or acknowledgment failed
+ * @param reconnects reconnect attempts
+ * @param writeLatency time from scheduling a task to its write completing
+ * @param ackLatency time from scheduling a tracked task to its acknowledgment
+ * @param heartbeatRtt round trip time of PING to PONG
+ * @param decodeTime time spent decoding one inbound frame
+ * @param topics per-topic breakdown
+ */
+public record MetricsSnapshot(long scheduled, long written, long acked, long triggered, long failed, long reconnects,
+                              HistogramSnapshot writeLatency, HistogramSnapshot ackLatency,
+                              HistogramSnapshot heartbeatRtt, HistogramSnapshot decodeTime,
+                              Map<String, TopicSnapshot> topics) {
+}
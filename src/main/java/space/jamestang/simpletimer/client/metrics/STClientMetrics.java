@@ -0,0 +1,150 @@
+package space.jamestang.simpletimer.client.metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms of one STClient, readable without any metrics library.
+ * <p>
+ * Counters are {@link LongAdder}s, so concurrent updates from many threads do not contend on one cache line,
+ * and histograms are lock-free {@link LatencyHistogram}s. Scrape with {@link #snapshot()}, or with
+ * {@link #snapshotAndReset()} to get per-interval values.
+ * <p>
+ * At most {@value #MAX_TOPICS} topics are tracked individually, further topics are aggregated under
+ * {@value #OTHER_TOPICS}. Topics without any activity since the previous reset are dropped by
+ * {@link #snapshotAndReset()}, so topics that carry IDs do not accumulate histograms.
+ */
+public final class STClientMetrics {
+    /** the number of topics tracked individually */
+    public static final int MAX_TOPICS = 1024;
+    /** the topic under which the metrics of topics beyond {@link #MAX_TOPICS} are aggregated */
+    public static final String OTHER_TOPICS = "#";
+
+    private final LongAdder scheduled = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder acked = new LongAdder();
+    private final LongAdder triggered = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder reconnects = new LongAdder();
+    private final LatencyHistogram writeLatency = new LatencyHistogram();
+    private final LatencyHistogram ackLatency = new LatencyHistogram();
+    private final LatencyHistogram heartbeatRtt = new LatencyHistogram();
+    private final LatencyHistogram decodeTime = new LatencyHistogram();
+    private final ConcurrentMap<String, TopicMetrics> topics = new ConcurrentHashMap<>();
+
+    public void scheduled(String topic) {
+        scheduled.increment();
+        topic(topic).scheduled.increment();
+    }
+
+    public void written(long startNanos) {
+        written.increment();
+        writeLatency.recordSince(startNanos);
+    }
+
+    public void acked() {
+        acked.increment();
+    }
+
+    public void ackLatency(long nanos) {
+        ackLatency.record(nanos);
+    }
+
+    public void triggered(String topic) {
+        triggered.increment();
+        topic(topic).triggered.increment();
+    }
+
+    public void failed() {
+        failed.increment();
+    }
+
+    public void reconnect() {
+        reconnects.increment();
+    }
+
+    public void heartbeatRtt(long nanos) {
+        heartbeatRtt.record(nanos);
+    }
+
+    public void decoded(long startNanos) {
+        decodeTime.recordSince(startNanos);
+    }
+
+    /**
+     * Records one run of a topic's handler.
+     */
+    public void handled(String topic, long startNanos, boolean success) {
+        TopicMetrics metrics = topic(topic);
+        metrics.handlerTime.recordSince(startNanos);
+        if (!success) {
+            metrics.handlerFailures.increment();
+        }
+    }
+
+    private TopicMetrics topic(String topic) {
+        TopicMetrics metrics = topics.get(topic);
+        if (metrics != null) {
+            return metrics;
+        }
+        // 超出上限的topic合并统计，上限为近似值
+        if (topics.size() >= MAX_TOPICS) {
+            topic = OTHER_TOPICS;
+        }
+        return topics.computeIfAbsent(topic, t -> new TopicMetrics());
+    }
+
+    public MetricsSnapshot snapshot() {
+        return snapshot(false);
+    }
+
+    public MetricsSnapshot snapshotAndReset() {
+        return snapshot(true);
+    }
+
+    public void reset() {
+        snapshot(true);
+    }
+
+    private MetricsSnapshot snapshot(boolean reset) {
+        Map<String, TopicSnapshot> topicSnapshots = new HashMap<>();
+        topics.forEach((topic, metrics) -> {
+            TopicSnapshot snapshot = metrics.snapshot(reset);
+            if (reset && snapshot.scheduled() == 0 && snapshot.triggered() == 0 && snapshot.handlerTime().count() == 0) {
+                // 移除后并发写入的计数会丢失，与清零时的竞争相同
+                topics.remove(topic, metrics);
+            } else {
+                topicSnapshots.put(topic, snapshot);
+            }
+        });
+        return new MetricsSnapshot(
+                read(scheduled, reset), read(written, reset), read(acked, reset),
+                read(triggered, reset), read(failed, reset), read(reconnects, reset),
+                read(writeLatency, reset), read(ackLatency, reset),
+                read(heartbeatRtt, reset), read(decodeTime, reset),
+                Map.copyOf(topicSnapshots));
+    }
+
+    private static long read(LongAdder adder, boolean reset) {
+        return reset ? adder.sumThenReset() : adder.sum();
+    }
+
+    private static HistogramSnapshot read(LatencyHistogram histogram, boolean reset) {
+        return reset ? histogram.snapshotAndReset() : histogram.snapshot();
+    }
+
+    private static final class TopicMetrics {
+        final LongAdder scheduled = new LongAdder();
+        final LongAdder triggered = new LongAdder();
+        final LongAdder handlerFailures = new LongAdder();
+        final LatencyHistogram handlerTime = new LatencyHistogram();
+
+        TopicSnapshot snapshot(boolean reset) {
+            return new TopicSnapshot(read(scheduled, reset), read(triggered, reset),
+                    read(handlerFailures, reset), read(handlerTime, reset));
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package space.jamestang.simpletimer.client.metrics;
+
+/**
+ * Point-in-time view of the metrics of one topic.
+ */
+public record TopicSnapshot(long scheduled, long triggered, long handlerFailures, HistogramSnapshot handlerTime) {
+}
@@ -0,0 +1,113 @@
+package space.jamestang.simpletimer.client.network;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToMessageCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import space.jamestang.simpletimer.client.compression.CompressionCodec;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.zip.DataFormatException;
+
+/**
+ * Compresses schedule payloads above a size threshold and transparently decompresses inbound payloads.
+ * <p>
+ * A compressed message has {@link MessageType#COMPRESSED} set in its type and its payload is
+ * {@code int uncompressedLength} followed by the compressed bytes. A payload is only sent compressed
+ * if that makes it smaller. Handlers downstream always see the original type and payload.
+ */
+public class CompressionHandler extends MessageToMessageCodec<Message, Message> {
+    private static final Logger logger = LoggerFactory.getLogger(CompressionHandler.class);
+
+    private final CompressionCodec codec;
+    private final int threshold;
+    private final boolean zeroCopy;
+
+    /**
+     * @param codec the codec of this channel, closed when the handler is removed
+     * @param threshold min payload size in bytes to compress
+     * @param zeroCopy whether decompressed payloads are kept in pooled buffers instead of heap arrays
+     */
+    public CompressionHandler(CompressionCodec codec, int threshold, boolean zeroCopy) {
+        this.codec = codec;
+        this.threshold = threshold;
+        this.zeroCopy = zeroCopy;
+    }
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, Message msg, List<Object> out) {
+        int length = msg.payloadLength();
+        boolean compressible = msg.type() == MessageType.SCHEDULE_TASK || msg.type() == MessageType.BATCH_SCHEDULE_TASK;
+        // 压缩后至少要比原始payload小，否则直接发送原文
+        if (!compressible || length < threshold || length <= 5) {
+            out.add(msg.retain());
+            return;
+        }
+
+        ByteBuf compressed = ctx.alloc().directBuffer(length - 1);
+        compressed.writeInt(length);
+        ByteBuffer dst = compressed.nioBuffer(4, length - 5);
+        if (!codec.compress(source(msg), dst)) {
+            compressed.release();
+            out.add(msg.retain());
+            return;
+        }
+        compressed.writerIndex(4 + dst.position());
+        out.add(new Message(msg.magic(), msg.version(), msg.type() | MessageType.COMPRESSED, msg.topicLength(),
+                msg.topic(), msg.delay(), null, compressed, msg.requestId()));
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, Message msg, List<Object> out) {
+        if ((msg.type() & MessageType.COMPRESSED) == 0) {
+            out.add(msg.retain());
+            return;
+        }
+
+        ByteBuffer src = source(msg);
+        int length = src.remaining() >= 4 ? src.getInt() : -1;
+        if (length < 0 || length > STClientChannelInitializer.MAX_FRAME_LENGTH) {
+            logger.error("Dropping compressed message for topic '{}' with invalid length {}", msg.topic(), length);
+            return;
+        }
+
+        int type = msg.type() & ~MessageType.COMPRESSED;
+        try {
+            if (zeroCopy) {
+                ByteBuf content = ctx.alloc().directBuffer(length);
+                try {
+                    codec.decompress(src, content.nioBuffer(0, length));
+                } catch (DataFormatException e) {
+                    content.release();
+                    throw e;
+                }
+                content.writerIndex(length);
+                out.add(new Message(msg.magic(), msg.version(), type, msg.topicLength(), msg.topic(), msg.delay(),
+                        null, content, msg.requestId()));
+            } else {
+                byte[] payload = new byte[length];
+                codec.decompress(src, ByteBuffer.wrap(payload));
+                out.add(new Message(msg.magic(), msg.version(), type, msg.topicLength(), msg.topic(), msg.delay(),
+                        payload, null, msg.requestId()));
+            }
+        } catch (DataFormatException e) {
+            logger.error("Dropping corrupt compressed message for topic '{}': {}", msg.topic(), e.getMessage());
+        }
+    }
+
+    private static ByteBuffer source(Message msg) {
+        if (msg.isZeroCopy()) {
+            ByteBuf content = msg.content();
+            return content.nioBuffer(content.readerIndex(), content.readableBytes());
+        }
+        return ByteBuffer.wrap(msg.payload());
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        codec.close();
+        super.handlerRemoved(ctx);
+    }
+}
@@ -0,0 +1,130 @@
+package space.jamestang.simpletimer.client.network;
+
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.timeout.IdleState;
+import io.netty.handler.timeout.IdleStateEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import space.jamestang.simpletimer.client.jfr.HeartbeatEvent;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+/**
+ * Sends a PING whenever nothing was read for a heartbeat interval and closes the channel once nothing was
+ * read for the heartbeat timeout, so a half-open connection is noticed without waiting for a failed write.
+ * <p>
+ * Sits behind an {@link io.netty.handler.timeout.IdleStateHandler} firing reader idle events every interval,
+ * any inbound frame (the PONG included) counts as a sign of life. The round trip of each PING is measured
+ * once the {@link MessageDispatcher} reports its PONG, see {@link #pongReceived()}. With {@code closeOnMissedPong} a PING still unanswered
+ * at the next idle event closes the channel right away, used when replicas can take over.
+ * <p>
+ * While reading is paused (auto read off, e.g. a publisher's subscriber falls behind) silence is expected:
+ * no PING is sent, the outstanding one is forgotten and the timeout starts over once reading resumes.
+ */
+public class HeartbeatHandler extends ChannelInboundHandlerAdapter {
+
+    private static final Logger logger = LoggerFactory.getLogger(HeartbeatHandler.class);
+
+    private final long timeoutNanos;
+    private final boolean closeOnMissedPong;
+    private long lastReadNanos;
+    // 仅在事件循环上访问，0表示没有未应答的PING
+    private long pingSentNanos;
+    private volatile LongConsumer rttListener;
+
+    public HeartbeatHandler(long timeout, TimeUnit unit, boolean closeOnMissedPong) {
+        this.timeoutNanos = unit.toNanos(timeout);
+        this.closeOnMissedPong = closeOnMissedPong;
+    }
+
+    /**
+     * Receives the round trip time in nanoseconds of every answered PING on this connection.
+     */
+    public void rttListener(LongConsumer rttListener) {
+        this.rttListener = rttListener;
+    }
+
+    /**
+     * Ends the measurement of the outstanding PING, called on the event loop when its PONG is read.
+     * @return the round trip time of the outstanding PING, or -1 if none is outstanding
+     */
+    long pongReceived() {
+        long sent = pingSentNanos;
+        pingSentNanos = 0;
+        long rtt = sent == 0 ? -1 : System.nanoTime() - sent;
+        LongConsumer listener = rttListener;
+        if (rtt >= 0 && listener != null) {
+            listener.accept(rtt);
+        }
+        return rtt;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) {
+        lastReadNanos = System.nanoTime();
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        lastReadNanos = System.nanoTime();
+        super.channelActive(ctx);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        lastReadNanos = System.nanoTime();
+        super.channelRead(ctx, msg);
+    }
+
+    @Override
+    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+        if (!(evt instanceof IdleStateEvent idle) || idle.state() != IdleState.READER_IDLE) {
+            super.userEventTriggered(ctx, evt);
+            return;
+        }
+
+        if (!ctx.channel().config().isAutoRead()) {
+            // 读暂停期间读不到数据是正常的，PONG 也不会被读取
+            lastReadNanos = System.nanoTime();
+            pingSentNanos = 0;
+            return;
+        }
+        long silentNanos = System.nanoTime() - lastReadNanos;
+        if (silentNanos >= timeoutNanos) {
+            logger.warn("Nothing read from {} for {} ms, closing the connection",
+                    ctx.channel().remoteAddress(), TimeUnit.NANOSECONDS.toMillis(silentNanos));
+            failed(ctx);
+            return;
+        }
+        if (closeOnMissedPong && pingSentNanos != 0) {
+            logger.warn("Heartbeat to {} unanswered for {} ms, closing the connection",
+                    ctx.channel().remoteAddress(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - pingSentNanos));
+            failed(ctx);
+            return;
+        }
+
+        logger.debug("Sending heartbeat to {}...", ctx.channel().remoteAddress());
+        pingSentNanos = System.nanoTime();
+        // 位于编码器之前，直接写出预编码的心跳帧
+        ctx.writeAndFlush(MessageEncoder.pingFrame()).addListener((ChannelFuture future) -> {
+            if (!future.isSuccess()) {
+                logger.error("Failed to send ping message with cause: {}", future.cause().getMessage());
+                failed(ctx);
+            }
+        });
+    }
+
+    private void failed(ChannelHandlerContext ctx) {
+        HeartbeatEvent event = new HeartbeatEvent();
+        if (event.shouldCommit()) {
+            event.channel = ctx.channel().id().asShortText();
+            event.success = false;
+            event.commit();
+        }
+        // 关闭通道后由关闭监听器触发重连
+        ctx.close();
+    }
+}
@@ -1,11 +1,26 @@
 package space.jamestang.simpletimer.client.network;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.util.ReferenceCounted;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
 /**
  * This record class is only for the timer client to send messages to the server.
  * the payload is only meant to be a byte array, which can be any data.
+ * <p>
+ * Messages decoded in zero-copy mode carry their payload as a retained slice of the received frame in
+ * {@link #content()} instead of a byte array. Such messages must be released once consumed, which the
+ * handler registry does after the handler returns; for heap messages {@link #release()} is a no-op.
+ * <p>
+ * {@link #requestId()} correlates a SCHEDULE_TASK with the server's TASK_RECEIVED, 0 means uncorrelated.
+ * It only travels on the wire in protocol v2 frames.
  */
 public record Message(
         int magic,
@@ -14,12 +29,94 @@ public record Message(
         int topicLength,
         String topic,
         long delay,
-        byte[] payload
-) {
+        byte[] payload,
+        ByteBuf content,
+        long requestId
+) implements ReferenceCounted {
+
+    public Message(int magic, int version, int type, int topicLength, String topic, long delay, byte[] payload) {
+        this(magic, version, type, topicLength, topic, delay, payload, null, 0);
+    }
+
+    /**
+     * @return a copy of this message carrying the given correlation ID
+     */
+    public Message withRequestId(long requestId) {
+        return new Message(magic, version, type, topicLength, topic, delay, payload, content, requestId);
+    }
+
+    /**
+     * Returns the payload as a byte array. For zero-copy messages this copies the content to the heap
+     * on every call, prefer {@link #content()} for those.
+     */
+    @Override
+    public byte[] payload() {
+        if (payload == null && content != null) {
+            return ByteBufUtil.getBytes(content);
+        }
+        return payload;
+    }
+
+    public int payloadLength() {
+        return payload != null ? payload.length : content != null ? content.readableBytes() : 0;
+    }
+
+    /**
+     * @return whether the payload is held in {@link #content()} rather than a byte array
+     */
+    public boolean isZeroCopy() {
+        return payload == null && content != null;
+    }
+
+    @Override
+    public int refCnt() {
+        return content != null ? content.refCnt() : 1;
+    }
+
+    @Override
+    public Message retain() {
+        if (content != null) {
+            content.retain();
+        }
+        return this;
+    }
+
+    @Override
+    public Message retain(int increment) {
+        if (content != null) {
+            content.retain(increment);
+        }
+        return this;
+    }
+
+    @Override
+    public Message touch() {
+        return this;
+    }
+
+    @Override
+    public Message touch(Object hint) {
+        if (content != null) {
+            content.touch(hint);
+        }
+        return this;
+    }
+
+    @Override
+    public boolean release() {
+        return content != null && content.release();
+    }
+
+    @Override
+    public boolean release(int decrement) {
+        return content != null && content.release(decrement);
+    }
+
+    private static final byte[] PING_PAYLOAD = "PING".getBytes(StandardCharsets.US_ASCII);
 
     @Contract("!null -> new")
     public static @NotNull Message createPING(String topic){
-        return createMessage(topic, 0, "PING".getBytes(), 1);
+        return createMessage(topic, 0, PING_PAYLOAD, MessageType.PING);
     }
 
     /**
@@ -32,23 +129,117 @@ public record Message(
      */
     @Contract("!null,_,!null -> new")
     public static @NotNull Message createSchedule(String topic, long delay, byte[] payload) {
-        return createMessage(topic, delay, payload, 2);
+        return createMessage(topic, delay, payload, MessageType.SCHEDULE_TASK);
     }
 
 
+    /**
+     * Creates a message to schedule a task whose payload is already in a buffer, which the message takes
+     * ownership of: it is released once the message has been written.
+     */
+    @Contract("!null,_,!null -> new")
+    public static @NotNull Message createSchedule(String topic, long delay, ByteBuf content) {
+        if (delay < 1000) {
+            throw new IllegalArgumentException("Delay must be at least 1000 milliseconds");
+        }
+        return new Message(0x7355608, 1, MessageType.SCHEDULE_TASK, TopicCache.INSTANCE.encode(topic).length,
+                topic, delay, null, content, 0);
+    }
+
+    /**
+     * Creates the HELLO message offering protocol versions up to {@code maxVersion}.
+     */
+    @Contract("_ -> new")
+    public static @NotNull Message createHello(int maxVersion) {
+        return createMessage("", 0, new byte[]{(byte) maxVersion}, MessageType.HELLO);
+    }
+
+    /**
+     * Creates the TOPIC_REGISTER message announcing the v2 topic ID of a topic.
+     */
+    @Contract("!null,_ -> new")
+    public static @NotNull Message createTopicRegister(String topic, int topicId) {
+        byte[] id = ByteBuffer.allocate(4).putInt(topicId).array();
+        return createMessage(topic, 0, id, MessageType.TOPIC_REGISTER);
+    }
+
+    /**
+     * Packs several schedule messages into a single BATCH_SCHEDULE_TASK message, writing the tasks straight into
+     * a buffer of {@code alloc} that the message owns and releases once written. The tasks are left untouched.
+     * The payload layout is {@code count} followed by {@code count} entries of
+     * {@code topicLength, topic, delay, payloadLength, payload}, all lengths being 4-byte ints.
+     * @param tasks the schedule messages to pack, created by {@link #createSchedule}
+     * @return a new Message instance carrying all tasks
+     * @throws IllegalArgumentException if the batch frame would exceed the max frame length
+     */
+    @Contract("_,!null -> new")
+    public static @NotNull Message createBatchSchedule(ByteBufAllocator alloc, List<Message> tasks) {
+        int size = batchPayloadLength(tasks);
+        ByteBuf content = alloc.buffer(size, size);
+        writeBatch(content, tasks);
+        return new Message(0x7355608, 1, MessageType.BATCH_SCHEDULE_TASK, 0, "", 0, null, content, 0);
+    }
+
+    private static int batchPayloadLength(List<Message> tasks) {
+        if (tasks.isEmpty()) {
+            throw new IllegalArgumentException("Batch must contain at least one task");
+        }
+
+        long size = 4;
+        for (Message task : tasks) {
+            if (task.type() != MessageType.SCHEDULE_TASK) {
+                throw new IllegalArgumentException("Only schedule messages can be batched, got type: " + task.type());
+            }
+            size += 4 + TopicCache.INSTANCE.encode(task.topic()).length + 8 + 4 + task.payloadLength();
+        }
+        // 整个帧（长度前缀、头部和空topic）都不能超过服务端的最大帧长度
+        long frameSize = 4 + MessageEncoder.HEADER_LENGTH + size;
+        if (frameSize > STClientChannelInitializer.MAX_FRAME_LENGTH) {
+            throw new IllegalArgumentException("Batch frame of " + frameSize + " bytes exceeds max frame length "
+                    + STClientChannelInitializer.MAX_FRAME_LENGTH);
+        }
+        return (int) size;
+    }
+
+    private static void writeBatch(ByteBuf out, List<Message> tasks) {
+        out.writeInt(tasks.size());
+        for (Message task : tasks) {
+            byte[] topic = TopicCache.INSTANCE.encode(task.topic());
+            out.writeInt(topic.length);
+            out.writeBytes(topic);
+            out.writeLong(task.delay());
+            out.writeInt(task.payloadLength());
+            if (task.isZeroCopy()) {
+                out.writeBytes(task.content(), task.content().readerIndex(), task.payloadLength());
+            } else if (task.payload() != null) {
+                out.writeBytes(task.payload());
+            }
+        }
+    }
+
     private static @NotNull Message createMessage(String topic, long delay, byte[] payload, int type) {
-        if (delay < 1000 && type != 1) {
+        if (delay < 1000 && type == MessageType.SCHEDULE_TASK) {
             throw new IllegalArgumentException("Delay must be at least 1000 milliseconds");
         }
-        return new Message(0x7355608, 1, type, topic.length(), topic, delay, payload);
+        return new Message(0x7355608, 1, type, TopicCache.INSTANCE.encode(topic).length, topic, delay, payload);
     }
 
     @Override
     public @NotNull String toString() {
         // 避免在日志中打印大量的payload数据
-        String payloadPreview = payload.length > 100 
-            ? new String(payload, 0, 100, java.nio.charset.StandardCharsets.UTF_8) + "...(truncated)"
-            : new String(payload, java.nio.charset.StandardCharsets.UTF_8);
+        int payloadLength = payloadLength();
+        int previewLength = Math.min(payloadLength, 100);
+        String payloadPreview;
+        if (payload != null) {
+            payloadPreview = new String(payload, 0, previewLength, StandardCharsets.UTF_8);
+        } else if (content != null && content.refCnt() > 0) {
+            payloadPreview = content.toString(content.readerIndex(), previewLength, StandardCharsets.UTF_8);
+        } else {
+            payloadPreview = "";
+        }
+        if (payloadLength > 100) {
+            payloadPreview += "...(truncated)";
+        }
             
         return "Message{" +
                 "magic=0x" + Integer.toHexString(magic) +
@@ -57,7 +248,8 @@ public record Message(
                 ", topicLength=" + topicLength +
                 ", topic='" + topic + '\'' +
                 ", delay=" + delay +
-                ", payloadLength=" + payload.length +
+                ", requestId=" + requestId +
+                ", payloadLength=" + payloadLength +
                 ", payload='" + payloadPreview + '\'' +
                 '}';
     }
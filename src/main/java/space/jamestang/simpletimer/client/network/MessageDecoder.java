@@ -5,21 +5,54 @@ import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.ByteToMessageDecoder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import space.jamestang.simpletimer.client.jfr.DecodeEvent;
+import space.jamestang.simpletimer.client.metrics.STClientMetrics;
 
 import java.util.List;
 
 public class MessageDecoder extends ByteToMessageDecoder {
 
     private final Logger logger = LoggerFactory.getLogger(MessageDecoder.class);
+    private final boolean zeroCopy;
+    private final STClientMetrics metrics;
+
+    public MessageDecoder() {
+        this(false);
+    }
+
+    /**
+     * @param zeroCopy whether payloads are kept as retained slices of the frame instead of being copied
+     */
+    public MessageDecoder(boolean zeroCopy) {
+        this(zeroCopy, new STClientMetrics());
+    }
+
+    /**
+     * @param metrics records the decode time of each frame
+     */
+    public MessageDecoder(boolean zeroCopy, STClientMetrics metrics) {
+        this.zeroCopy = zeroCopy;
+        this.metrics = metrics;
+    }
 
     @Override
     protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
         logger.debug("Received data of length: {}", in.readableBytes());
+        long start = System.nanoTime();
+        int frameSize = in.readableBytes();
+        int decoded = out.size();
+        DecodeEvent event = new DecodeEvent();
+        event.begin();
 
         // 标记读取位置，以便在数据不完整时重置
         in.markReaderIndex();
         
         try {
+            if (in.isReadable() && in.getByte(in.readerIndex()) == ProtocolSession.V2_MARKER) {
+                decodeV2(ctx, in, out);
+                return;
+            }
+
             // 检查最小消息长度 (magic + version + type + topicLength + delay = 24 bytes)
             if (in.readableBytes() < 24) {
                 logger.debug("Not enough data for minimum message header, expected at least 24 bytes, but got: {}", in.readableBytes());
@@ -53,23 +86,16 @@ public class MessageDecoder extends ByteToMessageDecoder {
                 return;
             }
             
-            byte[] topicBytes = new byte[topicLength];
-            in.readBytes(topicBytes);
+            String topic = TopicCache.INSTANCE.readTopic(in, topicLength);
             long delay = in.readLong();
             
-            // 读取剩余的payload
-            int payloadLength = in.readableBytes();
-            if (payloadLength < 0) {
-                logger.error("Negative payload length: {}. Closing connection.", payloadLength);
-                ctx.close();
+            if (type == MessageType.TOPIC_REGISTER) {
+                // 在解码阶段登记，保证紧随其后的v2帧能解析出topic
+                registerTopic(ctx, in, topic);
                 return;
             }
 
-            byte[] payload = new byte[payloadLength];
-            in.readBytes(payload);
-
-            String topic = new String(topicBytes, java.nio.charset.StandardCharsets.UTF_8);
-            Message message = new Message(magic, version, type, topicLength, topic, delay, payload);
+            Message message = readPayload(in, magic, version, type, topicLength, topic, delay, 0);
             logger.debug("Decoded message: {}", message);
             out.add(message);
             
@@ -77,6 +103,69 @@ public class MessageDecoder extends ByteToMessageDecoder {
             logger.error("Error decoding message: {}", e.getMessage(), e);
             in.resetReaderIndex();
             ctx.close();
+        } finally {
+            metrics.decoded(start);
+            if (event.shouldCommit()) {
+                event.frameSize = frameSize;
+                if (out.size() > decoded && out.get(out.size() - 1) instanceof Message message) {
+                    event.type = message.type();
+                    event.topic = message.topic();
+                }
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Decodes a v2 frame, see {@link ProtocolSession} for the layout.
+     */
+    private void decodeV2(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+        in.skipBytes(1);
+        int type = Varints.readVarInt(in);
+        int topicId = Varints.readVarInt(in);
+        long delay = Varints.readVarLong(in);
+        long requestId = Varints.readVarLong(in);
+
+        ProtocolSession session = ProtocolSession.of(ctx.channel());
+        String topic = session != null ? session.topic(topicId) : null;
+        if (topic == null) {
+            logger.error("Received v2 frame with unknown topic id: {}, dropping it", topicId);
+            in.skipBytes(in.readableBytes());
+            return;
+        }
+
+        int topicLength = TopicCache.INSTANCE.encode(topic).length;
+        Message message = readPayload(in, 0x7355608, ProtocolSession.V2, type, topicLength, topic, delay, requestId);
+        logger.debug("Decoded v2 message: {}", message);
+        out.add(message);
+    }
+
+    private void registerTopic(ChannelHandlerContext ctx, ByteBuf in, String topic) {
+        ProtocolSession session = ProtocolSession.of(ctx.channel());
+        if (session == null || in.readableBytes() != 4) {
+            logger.warn("Ignoring malformed TOPIC_REGISTER frame for topic: {}", topic);
+            in.skipBytes(in.readableBytes());
+            return;
+        }
+        int topicId = in.readInt();
+        if (!session.registered(topicId, topic)) {
+            logger.warn("Rejected server registration of topic '{}' as id {}, the id is not a server id or already taken",
+                    topic, topicId);
+            return;
+        }
+        logger.debug("Server registered topic '{}' as id {}", topic, topicId);
+    }
+
+    private Message readPayload(ByteBuf in, int magic, int version, int type, int topicLength, String topic,
+                                long delay, long requestId) {
+        // 读取剩余的payload
+        int payloadLength = in.readableBytes();
+        if (zeroCopy) {
+            ByteBuf content = in.readRetainedSlice(payloadLength);
+            return new Message(magic, version, type, topicLength, topic, delay, null, content, requestId);
         }
+        byte[] payload = new byte[payloadLength];
+        in.readBytes(payload);
+        return new Message(magic, version, type, topicLength, topic, delay, payload, null, requestId);
     }
 }
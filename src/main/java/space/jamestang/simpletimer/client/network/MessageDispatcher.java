@@ -4,11 +4,21 @@ import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import space.jamestang.simpletimer.client.handler.TaskHandlerPoll;
+import space.jamestang.simpletimer.client.handler.TaskDispatcher;
+import space.jamestang.simpletimer.client.jfr.DispatchEvent;
+import space.jamestang.simpletimer.client.jfr.HeartbeatEvent;
+import space.jamestang.simpletimer.client.metrics.STClientMetrics;
 
 public class MessageDispatcher extends ChannelInboundHandlerAdapter {
 
     private final Logger logger = LoggerFactory.getLogger(MessageDispatcher.class);
+    private final TaskDispatcher taskDispatcher;
+    private final STClientMetrics metrics;
+
+    public MessageDispatcher(TaskDispatcher taskDispatcher, STClientMetrics metrics) {
+        this.taskDispatcher = taskDispatcher;
+        this.metrics = metrics;
+    }
 
     @Override
     public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
@@ -17,14 +27,20 @@ public class MessageDispatcher extends ChannelInboundHandlerAdapter {
             return;
         }
 
+        Message message = (Message) msg;
         try {
-            var response = dispatch((Message) msg);
+            var response = dispatch(ctx, message);
             if (response != null){
                 ctx.writeAndFlush(response);
             }
         } catch (Exception e) {
             logger.error("Error processing message: {}", e.getMessage(), e);
             // 不关闭连接，只记录错误
+        } finally {
+            // 触发消息由处理器负责释放
+            if (message.type() != MessageType.TASK_TRIGGERED) {
+                message.release();
+            }
         }
     }
     
@@ -41,10 +57,11 @@ public class MessageDispatcher extends ChannelInboundHandlerAdapter {
 
     /**
      * Dispatches the message to the appropriate handler based on its type.
+     * @param ctx the context of the channel the message was received on
      * @param message the message to dispatch
      * @return the acknowledgment message or null if no handler is found
      */
-    private Message dispatch(Message message){
+    private Message dispatch(ChannelHandlerContext ctx, Message message){
         if (message == null) {
             logger.warn("Received null message");
             return null;
@@ -52,28 +69,56 @@ public class MessageDispatcher extends ChannelInboundHandlerAdapter {
 
         logger.debug("Dispatching message: type={}, topic={}", message.type(), message.topic());
 
+        DispatchEvent event = new DispatchEvent();
+        event.begin();
         try {
             switch (message.type()){
                 case MessageType.PONG -> {
                     logger.trace("Received PONG message: {}", message.topic());
+                    HeartbeatHandler heartbeat = ctx.pipeline().get(HeartbeatHandler.class);
+                    long rtt = heartbeat != null ? heartbeat.pongReceived() : -1;
+                    if (rtt >= 0) {
+                        metrics.heartbeatRtt(rtt);
+                        HeartbeatEvent heartbeatEvent = new HeartbeatEvent();
+                        if (heartbeatEvent.shouldCommit()) {
+                            heartbeatEvent.channel = ctx.channel().id().asShortText();
+                            heartbeatEvent.rtt = rtt;
+                            heartbeatEvent.success = true;
+                            heartbeatEvent.commit();
+                        }
+                    }
                     return null;
                 }
 
                 case MessageType.TASK_RECEIVED -> {
                     logger.debug("Timer has received the task for topic: {}", message.topic());
+                    metrics.acked();
                     return null;
                 }
 
                 case MessageType.TASK_TRIGGERED -> {
                     logger.info("Received TASK_TRIGGERED message for topic: {}", message.topic());
+                    metrics.triggered(message.topic());
                     try {
-                        TaskHandlerPoll.INSTANCE.handle(message);
+                        // 交由处理器线程执行，避免阻塞I/O线程
+                        taskDispatcher.dispatch(message);
                     } catch (Exception e) {
                         logger.error("Error handling triggered task for topic '{}': {}", message.topic(), e.getMessage(), e);
                     }
                     return null;
                 }
 
+                case MessageType.HELLO -> {
+                    byte[] payload = message.payload();
+                    int version = payload.length > 0 ? payload[0] : ProtocolSession.V1;
+                    ProtocolSession session = ProtocolSession.of(ctx.channel());
+                    if (session != null) {
+                        session.negotiated(version);
+                        logger.info("Negotiated protocol version {} with server", session.version());
+                    }
+                    return null;
+                }
+
                 default -> {
                     logger.warn("Unknown message type: {}", message.type());
                     return null;
@@ -82,6 +127,12 @@ public class MessageDispatcher extends ChannelInboundHandlerAdapter {
         } catch (Exception e) {
             logger.error("Error dispatching message: {}", e.getMessage(), e);
             return null;
+        } finally {
+            if (event.shouldCommit()) {
+                event.type = message.type();
+                event.topic = message.topic();
+                event.commit();
+            }
         }
     }
 }
@@ -1,21 +1,125 @@
 package space.jamestang.simpletimer.client.network;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToByteEncoder;
 
+/**
+ * Encodes a message together with its 4-byte length prefix in a single pass into an exactly sized buffer,
+ * so no separate frame encoder and header buffer are needed.
+ * <p>
+ * Once protocol v2 has been negotiated on the channel, messages are written as compact v2 frames,
+ * preceded by a TOPIC_REGISTER frame the first time a topic is used, see {@link ProtocolSession}.
+ */
 public class MessageEncoder extends MessageToByteEncoder<Message> {
 
+    /** magic + version + type + topicLength + delay */
+    static final int HEADER_LENGTH = 4 + 4 + 4 + 4 + 8;
+
+    private static final ByteBuf PING_FRAME = encodeFrame(Unpooled.directBuffer(), Message.createPING("CLIENT-PING"));
+
+    /**
+     * @return the pre-encoded heartbeat frame, a retained duplicate of a shared buffer that is released by the write
+     */
+    public static ByteBuf pingFrame() {
+        return PING_FRAME.retainedDuplicate();
+    }
+
+    @Override
+    protected ByteBuf allocateBuffer(ChannelHandlerContext ctx, Message msg, boolean preferDirect) {
+        ProtocolSession session = v2Session(ctx, msg);
+        int size;
+        if (session == null) {
+            size = 4 + frameLength(msg);
+        } else {
+            int topicId = session.topicId(msg.topic());
+            size = 4 + frameLengthV2(msg, Math.max(topicId, 0));
+            if (topicId < 0) {
+                // 首次使用的topic需要先注册一个v1帧，新分配的ID比上面按ID 0计算的多占最多4字节
+                size += 4 + HEADER_LENGTH + TopicCache.INSTANCE.encode(msg.topic()).length + 4 + 4;
+            }
+        }
+        return preferDirect ? ctx.alloc().ioBuffer(size) : ctx.alloc().heapBuffer(size);
+    }
+
     @Override
     protected void encode(ChannelHandlerContext ctx, Message msg, ByteBuf out) throws Exception {
+        ProtocolSession session = v2Session(ctx, msg);
+        if (session == null) {
+            encodeFrame(out, msg);
+            return;
+        }
+
+        int topicId = session.topicId(msg.topic());
+        if (topicId < 0) {
+            topicId = session.register(msg.topic());
+            encodeFrame(out, Message.createTopicRegister(msg.topic(), topicId));
+        }
+        encodeFrameV2(out, msg, topicId);
+    }
+
+    /**
+     * @return the session of the channel if {@code msg} is to be written as a v2 frame, otherwise null
+     */
+    private static ProtocolSession v2Session(ChannelHandlerContext ctx, Message msg) {
+        if (msg.type() == MessageType.HELLO || msg.type() == MessageType.TOPIC_REGISTER) {
+            return null;
+        }
+        ProtocolSession session = ProtocolSession.of(ctx.channel());
+        return session != null && session.version() == ProtocolSession.V2 ? session : null;
+    }
 
+    /**
+     * Encodes a complete frame, length prefix included, into a new buffer of {@code alloc}.
+     */
+    public static ByteBuf encodeFrame(ByteBufAllocator alloc, Message msg) {
+        return encodeFrame(alloc.buffer(4 + frameLength(msg)), msg);
+    }
+
+    /**
+     * @return the frame length of {@code msg}, not counting the 4-byte length prefix
+     */
+    static int frameLength(Message msg) {
+        return HEADER_LENGTH + TopicCache.INSTANCE.encode(msg.topic()).length + msg.payloadLength();
+    }
+
+    private static int frameLengthV2(Message msg, int topicId) {
+        return 1 + Varints.varIntSize(msg.type()) + Varints.varIntSize(topicId)
+                + Varints.varLongSize(msg.delay()) + Varints.varLongSize(msg.requestId()) + msg.payloadLength();
+    }
+
+    private static void encodeFrameV2(ByteBuf out, Message msg, int topicId) {
+        out.writeInt(frameLengthV2(msg, topicId)); // Write frame length
+        out.writeByte(ProtocolSession.V2_MARKER); // Write v2 marker
+        Varints.writeVarInt(out, msg.type()); // Write type
+        Varints.writeVarInt(out, topicId); // Write topic id
+        Varints.writeVarLong(out, msg.delay()); // Write delay
+        Varints.writeVarLong(out, msg.requestId()); // Write request id
+        writePayload(out, msg); // Write payload bytes
+    }
+
+    private static ByteBuf encodeFrame(ByteBuf out, Message msg) {
+        byte[] topic = TopicCache.INSTANCE.encode(msg.topic());
+
+        out.writeInt(HEADER_LENGTH + topic.length + msg.payloadLength()); // Write frame length
         out.writeInt(msg.magic()); // Write magic number
         out.writeInt(msg.version()); // Write version
         out.writeInt(msg.type()); // Write type
-        out.writeInt(msg.topicLength()); // Write topic length
-        out.writeBytes(msg.topic().getBytes()); // Write topic bytes
+        out.writeInt(topic.length); // Write topic length
+        out.writeBytes(topic); // Write topic bytes
         out.writeLong(msg.delay()); // Write delay
-        out.writeBytes(msg.payload()); // Write payload bytes
+        writePayload(out, msg); // Write payload bytes
+        return out;
+    }
 
+    private static void writePayload(ByteBuf out, Message msg) {
+        if (msg.isZeroCopy()) {
+            ByteBuf content = msg.content();
+            out.writeBytes(content, content.readerIndex(), content.readableBytes());
+        } else if (msg.payload() != null) {
+            out.writeBytes(msg.payload());
+        }
     }
 }
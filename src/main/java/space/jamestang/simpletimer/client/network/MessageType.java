@@ -6,4 +6,12 @@ public class MessageType {
     public static final int SCHEDULE_TASK = 0x02;
     public static final int TASK_RECEIVED = 0x02;
     public static final int TASK_TRIGGERED = 0x03;
+    /** Carries several SCHEDULE_TASK entries packed into one frame, see {@link Message#createBatchSchedule}. */
+    public static final int BATCH_SCHEDULE_TASK = 0x04;
+    /** Protocol negotiation, the payload is the single-byte max version offered or the version chosen. */
+    public static final int HELLO = 0x10;
+    /** Maps a topic to a v2 topic ID for the rest of the connection, the payload is the 4-byte ID. */
+    public static final int TOPIC_REGISTER = 0x11;
+    /** Flag bit combined with the type of a message whose payload is compressed, see {@link CompressionHandler}. */
+    public static final int COMPRESSED = 0x100;
 }
@@ -0,0 +1,110 @@
+package space.jamestang.simpletimer.client.network;
+
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import space.jamestang.simpletimer.client.ScheduleReceipt;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Schedules waiting for the server's TASK_RECEIVED, keyed by correlation ID.
+ * Timeouts of all pending schedules share one hashed-wheel timer instead of a scheduled task each.
+ */
+public class PendingAckTable {
+    private final ConcurrentMap<Long, PendingAck> pending = new ConcurrentHashMap<>();
+    private final AtomicLong nextRequestId = new AtomicLong(0);
+    private final Timer timer;
+    private final long timeoutMillis;
+
+    public PendingAckTable(Timer timer, long timeoutMillis) {
+        this.timer = timer;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * @return a new correlation ID, never 0
+     */
+    public long nextRequestId() {
+        return nextRequestId.incrementAndGet();
+    }
+
+    /**
+     * Starts waiting for the acknowledgment of a schedule.
+     * @return the future completed by the matching TASK_RECEIVED, or failed with a {@link TimeoutException}
+     */
+    public CompletableFuture<ScheduleReceipt> register(long requestId, String topic) {
+        var ack = new PendingAck(requestId, topic, System.nanoTime());
+        pending.put(requestId, ack);
+        ack.timeout = timer.newTimeout(t -> fail(requestId,
+                new TimeoutException("No acknowledgment for request " + requestId + " within " + timeoutMillis + " ms")),
+                timeoutMillis, TimeUnit.MILLISECONDS);
+        return ack.future;
+    }
+
+    /**
+     * Completes the schedule with the given ID, if it is still pending.
+     * @return whether a pending schedule was completed
+     */
+    public boolean complete(long requestId) {
+        PendingAck ack = pending.remove(requestId);
+        if (ack == null) {
+            return false;
+        }
+        ack.cancelTimeout();
+        ack.future.complete(new ScheduleReceipt(requestId, ack.topic, System.nanoTime() - ack.startNanos));
+        return true;
+    }
+
+    /**
+     * Fails the schedule with the given ID, if it is still pending.
+     */
+    public void fail(long requestId, Throwable cause) {
+        PendingAck ack = pending.remove(requestId);
+        if (ack != null) {
+            ack.cancelTimeout();
+            ack.future.completeExceptionally(cause);
+        }
+    }
+
+    /**
+     * @return the number of schedules waiting for acknowledgment
+     */
+    public int size() {
+        return pending.size();
+    }
+
+    /**
+     * Fails every pending schedule, used on shutdown.
+     */
+    public void failAll(Throwable cause) {
+        for (Long requestId : pending.keySet()) {
+            fail(requestId, cause);
+        }
+    }
+
+    private static final class PendingAck {
+        final long requestId;
+        final String topic;
+        final long startNanos;
+        final CompletableFuture<ScheduleReceipt> future = new CompletableFuture<>();
+        volatile Timeout timeout;
+
+        PendingAck(long requestId, String topic, long startNanos) {
+            this.requestId = requestId;
+            this.topic = topic;
+            this.startNanos = startNanos;
+        }
+
+        void cancelTimeout() {
+            Timeout t = timeout;
+            if (t != null) {
+                t.cancel();
+            }
+        }
+    }
+}
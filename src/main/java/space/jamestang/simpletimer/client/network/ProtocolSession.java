@@ -0,0 +1,108 @@
+package space.jamestang.simpletimer.client.network;
+
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-connection protocol state: the negotiated protocol version and, for v2, the mapping between
+ * topics and the compact numeric IDs registered on this connection.
+ * <p>
+ * Protocol v2 frames replace the fixed header of v1 with
+ * {@code marker(0xF2), varint type, varint topicId, varlong delay, varlong requestId, payload}.
+ * A topic is announced once per connection with a v1 TOPIC_REGISTER frame carrying its ID as a 4-byte
+ * payload, topic ID 0 stands for the empty topic. Either side may register topics: the client assigns odd IDs
+ * and the server even ones, so registrations racing on both sides never pick the same ID. A server registration
+ * that reuses an ID already bound to another topic is rejected rather than remapping frames already in flight.
+ * The topic maps are only touched on the channel's event loop.
+ */
+public class ProtocolSession {
+    public static final int V1 = 1;
+    public static final int V2 = 2;
+    static final byte V2_MARKER = (byte) 0xF2;
+
+    static final AttributeKey<ProtocolSession> KEY = AttributeKey.valueOf("st.protocolSession");
+
+    private volatile int version = V1;
+    private volatile boolean negotiated = false;
+    private final Map<String, Integer> outboundIds = new HashMap<>();
+    private final Map<Integer, String> inboundTopics = new HashMap<>();
+    // 客户端只分配奇数ID
+    private int nextId = 1;
+
+    public static ProtocolSession of(Channel channel) {
+        return channel.attr(KEY).get();
+    }
+
+    static void attach(Channel channel) {
+        channel.attr(KEY).set(new ProtocolSession());
+    }
+
+    public int version() {
+        return version;
+    }
+
+    public boolean isNegotiated() {
+        return negotiated;
+    }
+
+    /**
+     * Applies the version chosen by the server in its HELLO reply.
+     */
+    void negotiated(int version) {
+        this.version = version >= V2 ? V2 : V1;
+        this.negotiated = true;
+    }
+
+    /**
+     * @return the ID of an already registered topic, or -1
+     */
+    int topicId(String topic) {
+        if (topic.isEmpty()) {
+            return 0;
+        }
+        Integer id = outboundIds.get(topic);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * Assigns the next free ID to a topic.
+     */
+    int register(String topic) {
+        int id = nextId;
+        nextId += 2;
+        outboundIds.put(topic, id);
+        inboundTopics.put(id, topic);
+        return id;
+    }
+
+    /**
+     * Records a topic registered by the server. A topic the client registered itself keeps its own ID
+     * for outbound frames, the server's ID is only used to resolve inbound ones.
+     * @return false if the ID is not a server ID or already bound to another topic, the registration is then ignored
+     */
+    boolean registered(int id, String topic) {
+        if (!isServerId(id)) {
+            return false;
+        }
+        String existing = inboundTopics.putIfAbsent(id, topic);
+        if (existing != null) {
+            return existing.equals(topic);
+        }
+        outboundIds.putIfAbsent(topic, id);
+        return true;
+    }
+
+    static boolean isServerId(int id) {
+        return id > 0 && (id & 1) == 0;
+    }
+
+    /**
+     * @return the topic of an ID, or null if it was never registered
+     */
+    String topic(int id) {
+        return id == 0 ? "" : inboundTopics.get(id);
+    }
+}
@@ -1,22 +1,49 @@
 package space.jamestang.simpletimer.client.network;
 
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelInitializer;
-import io.netty.channel.socket.SocketChannel;
 import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
-import io.netty.handler.codec.LengthFieldPrepender;
 import io.netty.handler.logging.LogLevel;
 import io.netty.handler.logging.LoggingHandler;
+import io.netty.handler.timeout.IdleStateHandler;
+import space.jamestang.simpletimer.client.STClientConfig;
+import space.jamestang.simpletimer.client.WritabilityListener;
+import space.jamestang.simpletimer.client.handler.TaskDispatcher;
+import space.jamestang.simpletimer.client.metrics.STClientMetrics;
 
-public class STClientChannelInitializer extends ChannelInitializer<SocketChannel> {
+import java.util.concurrent.TimeUnit;
 
-    private static final int MAX_FRAME_LENGTH = 1024 * 1024 * 10; // 10 MB
+public class STClientChannelInitializer extends ChannelInitializer<Channel> {
+
+    static final int MAX_FRAME_LENGTH = 1024 * 1024 * 10; // 10 MB
     private static final boolean ENABLE_LOGGING = Boolean.parseBoolean(
         System.getProperty("st.client.logging.enabled", "false"));
 
+    private final STClientConfig config;
+    private final TaskDispatcher taskDispatcher;
+    private final PendingAckTable ackTable;
+    private final WritabilityListener writabilityListener;
+    private final STClientMetrics metrics;
+
+    public STClientChannelInitializer(STClientConfig config, TaskDispatcher taskDispatcher, PendingAckTable ackTable,
+                                      WritabilityListener writabilityListener, STClientMetrics metrics) {
+        this.config = config;
+        this.taskDispatcher = taskDispatcher;
+        this.ackTable = ackTable;
+        this.writabilityListener = writabilityListener;
+        this.metrics = metrics;
+    }
+
     @Override
-    protected void initChannel(SocketChannel ch) throws Exception {
+    protected void initChannel(Channel ch) throws Exception {
         var pipeline = ch.pipeline();
-        
+        ProtocolSession.attach(ch);
+
+        // 读空闲一个心跳间隔时发送PING，超时未读到任何数据则关闭连接
+        pipeline.addLast("idleState", new IdleStateHandler(config.getHeartbeatInterval(), 0, 0, TimeUnit.SECONDS));
+        pipeline.addLast("heartbeat", new HeartbeatHandler(config.getHeartbeatTimeout(), TimeUnit.SECONDS,
+            !config.getReplicas().isEmpty()));
+
         // 可选的日志处理器 - 仅在调试时启用
         if (ENABLE_LOGGING) {
             pipeline.addLast("logging", new LoggingHandler(LogLevel.DEBUG));
@@ -27,15 +54,24 @@ public class STClientChannelInitializer extends ChannelInitializer<SocketChannel
             new LengthFieldBasedFrameDecoder(MAX_FRAME_LENGTH, 0, 4, 0, 4));
         
         // 消息解码器
-        pipeline.addLast("messageDecoder", new MessageDecoder());
-        
-        // 帧编码器
-        pipeline.addLast("frameEncoder", new LengthFieldPrepender(4));
+        pipeline.addLast("messageDecoder", new MessageDecoder(config.isZeroCopyDecoding(), metrics));
         
-        // 消息编码器
+        // 消息编码器 - 同时写入长度前缀
         pipeline.addLast("messageEncoder", new MessageEncoder());
+
+        // 可选的payload压缩，入站时透明解压
+        if (config.isCompression()) {
+            pipeline.addLast("compression", new CompressionHandler(config.getCompressionCodec().get(),
+                config.getCompressionThreshold(), config.isZeroCopyDecoding()));
+        }
+
+        // 关联服务端的TASK_RECEIVED确认
+        pipeline.addLast("ackTracker", new ScheduleAckTracker(ackTable));
         
         // 消息分发器
-        pipeline.addLast("messageDispatcher", new MessageDispatcher());
+        pipeline.addLast("messageDispatcher", new MessageDispatcher(taskDispatcher, metrics));
+
+        // 写缓冲越过水位时通知客户端
+        pipeline.addLast("writabilityNotifier", new WritabilityNotifier(writabilityListener));
     }
 }
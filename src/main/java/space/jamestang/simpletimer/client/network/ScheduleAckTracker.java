@@ -0,0 +1,152 @@
+package space.jamestang.simpletimer.client.network;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * Matches the server's TASK_RECEIVED messages with the schedules written on this channel.
+ * <p>
+ * A TASK_RECEIVED carrying a request ID (protocol v2) completes that ID directly. Without one, the server
+ * acknowledges tasks in the order it received them, so the tracker remembers the ID and topic of every
+ * schedule that cannot be acknowledged by ID in write order, 0 for untracked ones. An acknowledgment is
+ * credited to the oldest schedule of its topic; older schedules of other topics were evidently dropped
+ * or rejected by the server and are failed. Batch frames count as one untracked schedule per contained
+ * task. All state is confined to the channel's event loop.
+ */
+public class ScheduleAckTracker extends ChannelDuplexHandler {
+    private static final Logger logger = LoggerFactory.getLogger(ScheduleAckTracker.class);
+
+    /** offset of the type within a v1 frame, length prefix included */
+    private static final int TYPE_OFFSET = 4 + 4 + 4;
+
+    private final PendingAckTable ackTable;
+    private final ArrayDeque<Expected> inFlight = new ArrayDeque<>();
+
+    public ScheduleAckTracker(PendingAckTable ackTable) {
+        this.ackTable = ackTable;
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (msg instanceof Message message) {
+            if (message.type() == MessageType.SCHEDULE_TASK) {
+                // v2帧携带请求ID，其确认按ID匹配
+                if (message.requestId() == 0 || !isV2(ctx)) {
+                    expect(message.requestId(), message.topic());
+                }
+            } else if (message.type() == MessageType.BATCH_SCHEDULE_TASK) {
+                expectBatch(message.isZeroCopy() ? message.content() : null, message.payload());
+            }
+        }
+        super.write(ctx, msg, promise);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof Message message && message.type() == MessageType.TASK_RECEIVED) {
+            acknowledged(message);
+        }
+        super.channelRead(ctx, msg);
+    }
+
+    /**
+     * Remembers the schedules of a pre-encoded v1 frame written outside of the Message path, e.g. a
+     * buffered or journaled task. Must be called on the channel's event loop, in write order.
+     * @param frame the complete frame, length prefix included, its indexes are left untouched
+     * @param requestId the correlation ID of the task, 0 if untracked
+     */
+    public void expect(ByteBuf frame, long requestId) {
+        int base = frame.readerIndex();
+        int type = frame.getInt(base + TYPE_OFFSET);
+        int topicLength = frame.getInt(base + TYPE_OFFSET + 4);
+        int topicStart = base + TYPE_OFFSET + 8;
+        if (type == MessageType.SCHEDULE_TASK) {
+            expect(requestId, frame.toString(topicStart, topicLength, StandardCharsets.UTF_8));
+        } else if (type == MessageType.BATCH_SCHEDULE_TASK) {
+            int payloadStart = topicStart + topicLength + 8;
+            expectBatch(frame.slice(payloadStart, frame.writerIndex() - payloadStart), null);
+        }
+    }
+
+    /**
+     * @return the number of schedules waiting for an acknowledgment without request ID
+     */
+    int inFlight() {
+        return inFlight.size();
+    }
+
+    private void expect(long requestId, String topic) {
+        inFlight.add(new Expected(requestId, topic));
+    }
+
+    /**
+     * Remembers each task of a batch payload: int count, then per task int topic length, topic bytes,
+     * long delay, int payload length and payload bytes.
+     */
+    private void expectBatch(ByteBuf content, byte[] payload) {
+        ByteBuf batch = content != null ? content.duplicate() : Unpooled.wrappedBuffer(payload);
+        if (batch.readableBytes() < 4) {
+            return;
+        }
+        int count = batch.readInt();
+        for (int i = 0; i < count && batch.readableBytes() >= 4; i++) {
+            int topicLength = batch.readInt();
+            String topic = batch.readCharSequence(topicLength, StandardCharsets.UTF_8).toString();
+            batch.skipBytes(8);
+            batch.skipBytes(batch.readInt());
+            expect(0, topic);
+        }
+    }
+
+    private void acknowledged(Message message) {
+        if (message.requestId() != 0) {
+            ackTable.complete(message.requestId());
+            // v1帧写出的任务也可能被服务端按ID确认
+            inFlight.removeIf(expected -> expected.requestId == message.requestId());
+            return;
+        }
+
+        Expected matched = null;
+        for (Expected expected : inFlight) {
+            if (expected.topic.equals(message.topic())) {
+                matched = expected;
+                break;
+            }
+        }
+        if (matched == null) {
+            logger.debug("Received TASK_RECEIVED for topic '{}' without a matching schedule", message.topic());
+            return;
+        }
+
+        Iterator<Expected> it = inFlight.iterator();
+        Expected expected;
+        while ((expected = it.next()) != matched) {
+            it.remove();
+            if (expected.requestId != 0) {
+                ackTable.fail(expected.requestId, new IllegalStateException("Server acknowledged a later task on topic '"
+                        + message.topic() + "', request " + expected.requestId + " was dropped or rejected"));
+            }
+        }
+        it.remove();
+        if (matched.requestId != 0) {
+            ackTable.complete(matched.requestId);
+        }
+    }
+
+    private static boolean isV2(ChannelHandlerContext ctx) {
+        ProtocolSession session = ProtocolSession.of(ctx.channel());
+        return session != null && session.version() == ProtocolSession.V2;
+    }
+
+    private record Expected(long requestId, String topic) {
+    }
+}
@@ -0,0 +1,84 @@
+package space.jamestang.simpletimer.client.network;
+
+import io.netty.buffer.ByteBuf;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Interns decoded topic strings keyed by their UTF-8 bytes, and caches the UTF-8 encoding of outbound
+ * topics, so the steady stream of frames on a handful of topics does not allocate per frame.
+ * <p>
+ * Both directions are direct-mapped caches: a slot holds one immutable entry and a colliding topic simply
+ * replaces it, which keeps lookups lock-free at the cost of an occasional miss.
+ */
+final class TopicCache {
+    static final TopicCache INSTANCE = new TopicCache(1024);
+
+    private final Entry[] entries;
+    private final Entry[] encoded;
+    private final int mask;
+
+    TopicCache(int size) {
+        if (Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("Size must be a power of two");
+        }
+        this.entries = new Entry[size];
+        this.encoded = new Entry[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Reads a topic of {@code length} bytes at the reader index of {@code in} and advances past it.
+     */
+    String readTopic(ByteBuf in, int length) {
+        int index = in.readerIndex();
+        int hash = hash(in, index, length);
+        int slot = hash & mask;
+        Entry entry = entries[slot];
+        if (entry == null || entry.hash != hash || !entry.matches(in, index, length)) {
+            byte[] bytes = new byte[length];
+            in.getBytes(index, bytes);
+            entry = new Entry(hash, bytes, new String(bytes, StandardCharsets.UTF_8));
+            entries[slot] = entry;
+        }
+        in.skipBytes(length);
+        return entry.topic;
+    }
+
+    /**
+     * @return the UTF-8 bytes of {@code topic}, shared between callers and therefore never to be modified
+     */
+    byte[] encode(String topic) {
+        int hash = topic.hashCode();
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        Entry entry = encoded[slot];
+        if (entry == null || (entry.topic != topic && !entry.topic.equals(topic))) {
+            entry = new Entry(hash, topic.getBytes(StandardCharsets.UTF_8), topic);
+            encoded[slot] = entry;
+        }
+        return entry.bytes;
+    }
+
+    private static int hash(ByteBuf in, int index, int length) {
+        int h = 1;
+        for (int i = 0; i < length; i++) {
+            h = 31 * h + in.getByte(index + i);
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private record Entry(int hash, byte[] bytes, String topic) {
+
+        boolean matches(ByteBuf in, int index, int length) {
+            if (bytes.length != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (bytes[i] != in.getByte(index + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
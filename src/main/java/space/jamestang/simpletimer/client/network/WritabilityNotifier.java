@@ -0,0 +1,23 @@
+package space.jamestang.simpletimer.client.network;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import space.jamestang.simpletimer.client.WritabilityListener;
+
+/**
+ * Forwards channel writability changes to the client.
+ */
+public class WritabilityNotifier extends ChannelInboundHandlerAdapter {
+
+    private final WritabilityListener listener;
+
+    public WritabilityNotifier(WritabilityListener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        listener.onWritabilityChanged(ctx.channel(), ctx.channel().isWritable());
+        super.channelWritabilityChanged(ctx);
+    }
+}
@@ -0,0 +1,95 @@
+package space.jamestang.simpletimer.client.network;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.internal.PlatformDependent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Coalesces writes issued from many producer threads onto one channel.
+ * Producers only enqueue into a lock-free MPSC queue; the channel's event loop drains it
+ * with up to {@code maxBatch} writes followed by a single flush per tick.
+ */
+public class WriteCoalescer {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteCoalescer.class);
+
+    private final Channel channel;
+    private final int maxBatch;
+    private final long delayMicros;
+    private final Queue<PendingWrite> queue = PlatformDependent.newMpscQueue();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+    private final Runnable drainTask = this::drain;
+
+    /**
+     * @param channel the channel to write to
+     * @param maxBatch max writes per flush
+     * @param delayMicros how long a drain waits for more writes to accumulate, 0 to drain on the next tick
+     */
+    public WriteCoalescer(Channel channel, int maxBatch, long delayMicros) {
+        this.channel = channel;
+        this.maxBatch = maxBatch;
+        this.delayMicros = delayMicros;
+    }
+
+    /**
+     * Enqueues a message, it will be written and flushed by the event loop.
+     * @param msg the message to write
+     * @return the future of the write
+     */
+    public ChannelFuture write(Object msg) {
+        ChannelPromise promise = channel.newPromise();
+        queue.offer(new PendingWrite(msg, promise));
+        if (drainScheduled.compareAndSet(false, true)) {
+            scheduleDrain();
+        }
+        return promise;
+    }
+
+    private void scheduleDrain() {
+        try {
+            if (delayMicros > 0) {
+                channel.eventLoop().schedule(drainTask, delayMicros, TimeUnit.MICROSECONDS);
+            } else {
+                channel.eventLoop().execute(drainTask);
+            }
+        } catch (RejectedExecutionException e) {
+            logger.warn("Event loop rejected write drain, failing pending writes");
+            PendingWrite pending;
+            while ((pending = queue.poll()) != null) {
+                ReferenceCountUtil.release(pending.msg());
+                pending.promise().tryFailure(e);
+            }
+            drainScheduled.set(false);
+        }
+    }
+
+    private void drain() {
+        int written = 0;
+        PendingWrite pending;
+        while (written < maxBatch && (pending = queue.poll()) != null) {
+            channel.write(pending.msg(), pending.promise());
+            written++;
+        }
+        if (written > 0) {
+            channel.flush();
+        }
+
+        drainScheduled.set(false);
+        // 仍有积压时继续在下一个tick处理，避免长时间占用事件循环
+        if (!queue.isEmpty() && drainScheduled.compareAndSet(false, true)) {
+            scheduleDrain();
+        }
+    }
+
+    private record PendingWrite(Object msg, ChannelPromise promise) {
+    }
+}
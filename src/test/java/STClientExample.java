@@ -1,6 +1,5 @@
 import space.jamestang.simpletimer.client.STClient;
 import space.jamestang.simpletimer.client.STClientConfig;
-import space.jamestang.simpletimer.client.handler.TaskHandlerPoll;
 
 /**
  * 使用示例和最佳实践
@@ -23,12 +22,12 @@ public class STClientExample {
         STClient client = new STClient("localhost", 8080);
         
         // 注册消息处理器
-        TaskHandlerPoll.INSTANCE.registerHandler("user-notification", msg -> {
+        client.handlers().registerHandler("user-notification", msg -> {
             System.out.println("用户通知: " + new String(msg.payload()));
             // 处理业务逻辑...
         });
         
-        TaskHandlerPoll.INSTANCE.registerHandler("order-timeout", msg -> {
+        client.handlers().registerHandler("order-timeout", msg -> {
             System.out.println("订单超时处理: " + msg.topic());
             // 处理订单超时逻辑...
         });
@@ -80,7 +79,7 @@ public class STClientExample {
         STClient client = new STClient(config);
         
         // 注册错误处理器
-        TaskHandlerPoll.INSTANCE.registerHandler("error-topic", msg -> {
+        client.handlers().registerHandler("error-topic", msg -> {
             try {
                 // 业务处理逻辑
                 processMessage(msg.payload());
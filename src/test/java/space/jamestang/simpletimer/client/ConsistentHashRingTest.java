@@ -0,0 +1,62 @@
+package space.jamestang.simpletimer.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsistentHashRingTest {
+
+    @Test
+    void emptyRingRoutesNowhere() {
+        assertNull(new ConsistentHashRing<String>(List.of(), 16).route("key"));
+    }
+
+    @Test
+    void routingIsStable() {
+        ConsistentHashRing<String> ring = new ConsistentHashRing<>(List.of("a", "b", "c"), 64);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(ring.route("key-" + i), ring.route("key-" + i));
+        }
+    }
+
+    @Test
+    void spreadsKeysOverAllNodes() {
+        ConsistentHashRing<String> ring = new ConsistentHashRing<>(List.of("a", "b", "c"), 128);
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 3000; i++) {
+            counts.merge(ring.route("key-" + i), 1, Integer::sum);
+        }
+        assertEquals(3, counts.size());
+        counts.values().forEach(count -> assertTrue(count > 500, "uneven spread: " + counts));
+    }
+
+    @Test
+    void addingANodeOnlyMovesKeysToIt() {
+        ConsistentHashRing<String> ring = new ConsistentHashRing<>(List.of("a", "b", "c"), 64);
+        ConsistentHashRing<String> grown = ring.with("d");
+        assertEquals(List.of("a", "b", "c", "d"), grown.nodes());
+        for (int i = 0; i < 1000; i++) {
+            String before = ring.route("key-" + i);
+            String after = grown.route("key-" + i);
+            assertTrue(after.equals(before) || after.equals("d"));
+        }
+    }
+
+    @Test
+    void removingANodeOnlyMovesItsKeys() {
+        ConsistentHashRing<String> ring = new ConsistentHashRing<>(List.of("a", "b", "c"), 64);
+        ConsistentHashRing<String> shrunk = ring.without("b");
+        for (int i = 0; i < 1000; i++) {
+            String before = ring.route("key-" + i);
+            String after = shrunk.route("key-" + i);
+            assertNotEquals("b", after);
+            if (!before.equals("b")) {
+                assertEquals(before, after);
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package space.jamestang.simpletimer.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EndpointHealthTest {
+
+    private static final long MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void unmeasuredEndpointsKeepConfiguredOrder() {
+        EndpointHealth first = new EndpointHealth(new Endpoint("a", 1), 0);
+        EndpointHealth second = new EndpointHealth(new Endpoint("b", 1), 1);
+        assertEquals(-1, first.rttNanos());
+        assertTrue(first.healthierThan(second));
+        assertFalse(second.healthierThan(first));
+    }
+
+    @Test
+    void rttIsAMovingAverage() {
+        EndpointHealth health = new EndpointHealth(new Endpoint("a", 1), 0);
+        health.rtt(10 * MILLI);
+        assertEquals(10 * MILLI, health.rttNanos());
+        health.rtt(20 * MILLI);
+        assertEquals(13 * MILLI, health.rttNanos(), MILLI / 1000);
+    }
+
+    @Test
+    void lowerRttIsHealthier() {
+        EndpointHealth fast = new EndpointHealth(new Endpoint("a", 1), 1);
+        EndpointHealth slow = new EndpointHealth(new Endpoint("b", 1), 0);
+        fast.rtt(5 * MILLI);
+        slow.rtt(50 * MILLI);
+        assertTrue(fast.healthierThan(slow));
+    }
+
+    @Test
+    void failuresOutweighLowerRtt() {
+        EndpointHealth failing = new EndpointHealth(new Endpoint("a", 1), 0);
+        EndpointHealth healthy = new EndpointHealth(new Endpoint("b", 1), 1);
+        failing.rtt(5 * MILLI);
+        healthy.rtt(10 * MILLI);
+        failing.failure();
+        failing.failure();
+
+        assertTrue(failing.errorRate() > 0.4);
+        assertTrue(healthy.healthierThan(failing));
+        healthy.success();
+        assertEquals(0, healthy.errorRate());
+    }
+}
@@ -0,0 +1,122 @@
+package space.jamestang.simpletimer.client;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import io.netty.util.concurrent.Promise;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import space.jamestang.simpletimer.client.network.PendingAckTable;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OutboundBufferTest {
+
+    private final HashedWheelTimer timer = new HashedWheelTimer();
+    private final PendingAckTable ackTable = new PendingAckTable(timer, 60_000);
+    private final EmbeddedChannel channel = new EmbeddedChannel();
+
+    @AfterEach
+    void tearDown() {
+        channel.finishAndReleaseAll();
+        timer.stop();
+    }
+
+    @Test
+    void drainsFramesInOrderAcrossRingWrap() {
+        OutboundBuffer buffer = new OutboundBuffer(25, OverflowPolicy.REJECT, 0, ackTable);
+        Promise<Void> first = offer(buffer, 10, 1);
+        Promise<Void> second = offer(buffer, 10, 2);
+        buffer.drainTo(channel);
+        assertTrue(first.isSuccess() && second.isSuccess());
+        assertFrame(channel.readOutbound(), 10, 1);
+        assertFrame(channel.readOutbound(), 10, 2);
+
+        // 写位置在20，第二个帧跨越环尾回绕
+        offer(buffer, 10, 3);
+        offer(buffer, 10, 4);
+        buffer.drainTo(channel);
+        assertFrame(channel.readOutbound(), 10, 3);
+        assertFrame(channel.readOutbound(), 10, 4);
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    void rejectsWhenFull() {
+        OutboundBuffer buffer = new OutboundBuffer(16, OverflowPolicy.REJECT, 0, ackTable);
+        Promise<Void> kept = offer(buffer, 10, 1);
+        Promise<Void> rejected = offer(buffer, 10, 2);
+
+        assertFalse(kept.isDone());
+        assertInstanceOf(IllegalStateException.class, rejected.cause());
+    }
+
+    @Test
+    void rejectsFramesLargerThanCapacity() {
+        OutboundBuffer buffer = new OutboundBuffer(8, OverflowPolicy.DROP_OLDEST, 0, ackTable);
+        Promise<Void> tooLarge = offer(buffer, 10, 1);
+
+        assertInstanceOf(IllegalStateException.class, tooLarge.cause());
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    void dropOldestEvictsUntilTheFrameFits() {
+        OutboundBuffer buffer = new OutboundBuffer(30, OverflowPolicy.DROP_OLDEST, 0, ackTable);
+        long requestId = ackTable.nextRequestId();
+        CompletableFuture<ScheduleReceipt> ack = ackTable.register(requestId, "a");
+        Promise<Void> oldest = offer(buffer, 10, 1, requestId);
+        Promise<Void> older = offer(buffer, 10, 2);
+        Promise<Void> kept = offer(buffer, 10, 3);
+        Promise<Void> newest = offer(buffer, 20, 4);
+
+        assertInstanceOf(IllegalStateException.class, oldest.cause());
+        assertInstanceOf(IllegalStateException.class, older.cause());
+        assertTrue(ack.isCompletedExceptionally());
+        assertFalse(kept.isDone() || newest.isDone());
+
+        buffer.drainTo(channel);
+        assertFrame(channel.readOutbound(), 10, 3);
+        assertFrame(channel.readOutbound(), 20, 4);
+    }
+
+    @Test
+    void failAllFailsBufferedTasks() {
+        OutboundBuffer buffer = new OutboundBuffer(64, OverflowPolicy.REJECT, 0, ackTable);
+        Promise<Void> promise = offer(buffer, 10, 1);
+
+        buffer.failAll(new IllegalStateException("shutdown"));
+        assertEquals("shutdown", promise.cause().getMessage());
+        assertTrue(buffer.isEmpty());
+    }
+
+    private static Promise<Void> offer(OutboundBuffer buffer, int length, int fill) {
+        return offer(buffer, length, fill, 0);
+    }
+
+    private static Promise<Void> offer(OutboundBuffer buffer, int length, int fill, long requestId) {
+        Promise<Void> promise = ImmediateEventExecutor.INSTANCE.newPromise();
+        ByteBuf frame = Unpooled.buffer(length);
+        for (int i = 0; i < length; i++) {
+            frame.writeByte(fill);
+        }
+        buffer.offer(frame, requestId, promise, false);
+        assertEquals(0, frame.refCnt());
+        return promise;
+    }
+
+    private static void assertFrame(ByteBuf frame, int length, int fill) {
+        try {
+            assertEquals(length, frame.readableBytes());
+            while (frame.isReadable()) {
+                assertEquals(fill, frame.readByte());
+            }
+        } finally {
+            frame.release();
+        }
+    }
+}
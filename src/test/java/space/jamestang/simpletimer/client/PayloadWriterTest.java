@@ -0,0 +1,96 @@
+package space.jamestang.simpletimer.client;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PayloadWriterTest {
+
+    private static final PooledByteBufAllocator ALLOC = PooledByteBufAllocator.DEFAULT;
+
+    private static final PayloadCodec<Long> LONG_CODEC = new PayloadCodec<>() {
+        @Override
+        public int size(Long value) {
+            return 8;
+        }
+
+        @Override
+        public void encode(Long value, ByteBuf out) {
+            out.writeLong(value);
+        }
+    };
+
+    private static byte[] write(PayloadWriter writer) {
+        ByteBuf content = STClient.writePayload(ALLOC, writer);
+        try {
+            assertEquals(content.capacity(), content.readableBytes());
+            return ByteBufUtil.getBytes(content);
+        } finally {
+            content.release();
+        }
+    }
+
+    /**
+     * A writer declaring {@code declared} bytes that writes {@code written} bytes, remembering its buffer.
+     */
+    private static PayloadWriter writer(int declared, int written, AtomicReference<ByteBuf> buffer) {
+        return new PayloadWriter() {
+            @Override
+            public int size() {
+                return declared;
+            }
+
+            @Override
+            public void write(ByteBuf out) {
+                buffer.set(out);
+                out.writeZero(written);
+            }
+        };
+    }
+
+    @Test
+    void charSequenceIsWrittenAsUtf8OfExactSize() {
+        CharSequence text = new StringBuilder("order-订单-ü-😀");
+        PayloadWriter writer = PayloadWriter.of(text);
+        byte[] expected = text.toString().getBytes(StandardCharsets.UTF_8);
+        assertEquals(expected.length, writer.size());
+        assertArrayEquals(expected, write(writer));
+    }
+
+    @Test
+    void byteBufferIsWrittenWithoutMovingItsPosition() {
+        ByteBuffer buffer = ByteBuffer.wrap(new byte[]{0, 1, 2, 3, 4});
+        buffer.position(2);
+        PayloadWriter writer = PayloadWriter.of(buffer);
+        assertArrayEquals(new byte[]{2, 3, 4}, write(writer));
+        // 可以重复写出，例如重试时
+        assertArrayEquals(new byte[]{2, 3, 4}, write(writer));
+        assertEquals(2, buffer.position());
+    }
+
+    @Test
+    void codecWritesTheValue() {
+        byte[] payload = write(PayloadWriter.of(0x0102030405060708L, LONG_CODEC));
+        assertEquals(0x0102030405060708L, ByteBuffer.wrap(payload).getLong());
+    }
+
+    @Test
+    void rejectsWritersMissingTheirDeclaredSize() {
+        AtomicReference<ByteBuf> buffer = new AtomicReference<>();
+        assertThrows(IllegalArgumentException.class, () -> STClient.writePayload(ALLOC, writer(8, 5, buffer)));
+        assertEquals(0, buffer.get().refCnt());
+
+        // 容量上限等于声明大小，写超时失败
+        assertThrows(IllegalArgumentException.class, () -> STClient.writePayload(ALLOC, writer(8, 9, buffer)));
+        assertEquals(0, buffer.get().refCnt());
+
+        assertThrows(IllegalArgumentException.class, () -> STClient.writePayload(ALLOC, writer(0, 0, buffer)));
+    }
+}
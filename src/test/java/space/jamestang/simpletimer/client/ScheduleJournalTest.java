@@ -0,0 +1,115 @@
+package space.jamestang.simpletimer.client;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScheduleJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recoversOnlyUnacknowledgedRecords() throws Exception {
+        try (ScheduleJournal journal = new ScheduleJournal(directory, 4096, 0)) {
+            assertTrue(journal.recovered().isEmpty());
+            ScheduleJournal.Entry acked = journal.append(frame("acked"));
+            journal.append(frame("pending-1"));
+            ScheduleJournal.Entry last = journal.append(frame("pending-2"));
+            last.durable().get(5, TimeUnit.SECONDS);
+            journal.acknowledge(acked);
+        }
+
+        try (ScheduleJournal journal = new ScheduleJournal(directory, 4096, 0)) {
+            List<ScheduleJournal.Entry> recovered = journal.recovered();
+            assertEquals(2, recovered.size());
+            assertEquals("pending-1", new String(journal.frame(recovered.get(0)), StandardCharsets.UTF_8));
+            assertEquals("pending-2", new String(journal.frame(recovered.get(1)), StandardCharsets.UTF_8));
+            assertEquals("pending-1".length(), recovered.get(0).length());
+            recovered.forEach(journal::acknowledge);
+        }
+
+        try (ScheduleJournal journal = new ScheduleJournal(directory, 4096, 0)) {
+            assertTrue(journal.recovered().isEmpty());
+        }
+    }
+
+    @Test
+    void readsFramesOfAppendedAndRecoveredEntries() throws Exception {
+        try (ScheduleJournal journal = new ScheduleJournal(directory, 4096, 0)) {
+            journal.append(frame("first"));
+            ScheduleJournal.Entry second = journal.append(frame("second"));
+            assertEquals("second", new String(journal.frame(second), StandardCharsets.UTF_8));
+            second.durable().get(5, TimeUnit.SECONDS);
+        }
+
+        try (ScheduleJournal journal = new ScheduleJournal(directory, 4096, 0)) {
+            ScheduleJournal.Entry recovered = journal.recovered().get(1);
+            assertEquals("second", new String(journal.frame(recovered), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void closeForcesAcknowledgmentsAndReleasesSegments() throws Exception {
+        ScheduleJournal.Entry entry;
+        ScheduleJournal journal = new ScheduleJournal(directory, 4096, 0);
+        try (journal) {
+            entry = journal.append(frame("acked"));
+            entry.durable().get(5, TimeUnit.SECONDS);
+            // 确认本身不触发force，由close落盘
+            journal.acknowledge(entry);
+        }
+        assertThrows(IllegalStateException.class, () -> journal.frame(entry));
+
+        try (ScheduleJournal reopened = new ScheduleJournal(directory, 4096, 0)) {
+            assertTrue(reopened.recovered().isEmpty());
+        }
+    }
+
+    @Test
+    void deletesFullyAcknowledgedSegments() throws Exception {
+        try (ScheduleJournal journal = new ScheduleJournal(directory, 64, 0)) {
+            // 每段只能容纳一条记录，第二次追加会滚动到新段
+            ScheduleJournal.Entry first = journal.append(frame("x".repeat(40)));
+            ScheduleJournal.Entry second = journal.append(frame("y".repeat(40)));
+            second.durable().get(5, TimeUnit.SECONDS);
+            assertEquals(2, segments());
+
+            journal.acknowledge(first);
+            assertEquals(1, segments());
+            journal.acknowledge(second);
+        }
+    }
+
+    @Test
+    void rejectsRecordsLargerThanASegment() {
+        try (ScheduleJournal journal = new ScheduleJournal(directory, 64, 0)) {
+            ByteBuf frame = frame("z".repeat(64));
+            try {
+                assertThrows(IllegalArgumentException.class, () -> journal.append(frame));
+            } finally {
+                frame.release();
+            }
+        }
+    }
+
+    private long segments() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    private static ByteBuf frame(String content) {
+        return Unpooled.copiedBuffer(content, StandardCharsets.UTF_8);
+    }
+}
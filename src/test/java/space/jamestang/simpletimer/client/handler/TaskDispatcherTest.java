@@ -0,0 +1,224 @@
+package space.jamestang.simpletimer.client.handler;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import space.jamestang.simpletimer.client.metrics.HistogramSnapshot;
+import space.jamestang.simpletimer.client.metrics.STClientMetrics;
+import space.jamestang.simpletimer.client.network.Message;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskDispatcherTest {
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    void shutdownPool() {
+        pool.shutdownNow();
+    }
+
+    private static Message triggered(String topic) {
+        return Message.createSchedule(topic, 1000, new byte[1]);
+    }
+
+    private static Message triggered(String topic, int sequence) {
+        return Message.createSchedule(topic, 1000, ByteBuffer.allocate(4).putInt(sequence).array());
+    }
+
+    private static int sequence(Message msg) {
+        return ByteBuffer.wrap(msg.payload()).getInt();
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met within 5 s");
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    void orderedModeHandlesEachTopicInArrivalOrder() throws Exception {
+        TaskHandlerPoll handlers = new TaskHandlerPoll();
+        Map<String, List<Integer>> seen = new ConcurrentHashMap<>();
+        CountDownLatch done = new CountDownLatch(400);
+        for (String topic : List.of("a", "b")) {
+            handlers.registerHandler(topic, msg -> {
+                seen.computeIfAbsent(msg.topic(), t -> Collections.synchronizedList(new ArrayList<>())).add(sequence(msg));
+                done.countDown();
+            });
+        }
+        TaskDispatcher dispatcher = new TaskDispatcher(handlers, pool, true, 0);
+
+        for (int i = 0; i < 200; i++) {
+            dispatcher.dispatch(triggered("a", i));
+            dispatcher.dispatch(triggered("b", i));
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        List<Integer> expected = IntStream.range(0, 200).boxed().toList();
+        assertEquals(expected, seen.get("a"));
+        assertEquals(expected, seen.get("b"));
+    }
+
+    @Test
+    void limiterCapsConcurrencyAndRetiresWhenIdle() throws Exception {
+        TaskHandlerPoll handlers = new TaskHandlerPoll();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(10);
+        handlers.registerHandler("limited", msg -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+            done.countDown();
+        });
+        TaskDispatcher dispatcher = new TaskDispatcher(handlers, pool, false, 2);
+
+        for (int i = 0; i < 10; i++) {
+            dispatcher.dispatch(triggered("limited"));
+        }
+        awaitTrue(() -> running.get() == 2);
+        assertEquals(1, dispatcher.activeLimiters());
+        release.countDown();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(2, maxRunning.get());
+        // 最后一个任务结束后限流器退役并移出映射
+        awaitTrue(() -> dispatcher.activeLimiters() == 0);
+    }
+
+    @Test
+    void dispatchRacingLimiterRetirementLosesNoMessage() throws Exception {
+        TaskHandlerPoll handlers = new TaskHandlerPoll();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        AtomicInteger handled = new AtomicInteger();
+        handlers.registerHandler("racy", msg -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            running.decrementAndGet();
+            handled.incrementAndGet();
+        });
+        TaskDispatcher dispatcher = new TaskDispatcher(handlers, pool, false, 1);
+
+        // 处理器很快结束，限流器频繁退役，分发线程会拿到已退役的实例并重试
+        int threads = 4;
+        int perThread = 2000;
+        List<Thread> senders = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            senders.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    dispatcher.dispatch(triggered("racy"));
+                }
+            }));
+        }
+        for (Thread sender : senders) {
+            sender.join();
+        }
+        awaitTrue(() -> handled.get() == threads * perThread);
+        assertEquals(1, maxRunning.get());
+        awaitTrue(() -> dispatcher.activeLimiters() == 0);
+    }
+
+    @Test
+    void publisherTakesOverTopicUntilRemoved() throws Exception {
+        TaskHandlerPoll handlers = new TaskHandlerPoll();
+        List<Integer> handled = Collections.synchronizedList(new ArrayList<>());
+        handlers.registerHandler("feed", msg -> handled.add(sequence(msg)));
+        TaskDispatcher dispatcher = new TaskDispatcher(handlers, Runnable::run, false, 0);
+
+        List<Integer> published = Collections.synchronizedList(new ArrayList<>());
+        TopicPublisher publisher = dispatcher.publisher("feed", 16, paused -> { });
+        assertSame(publisher, dispatcher.publisher("feed", 16, paused -> { }));
+        publisher.subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(Message item) {
+                published.add(sequence(item));
+                item.release();
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+
+        dispatcher.dispatch(triggered("feed", 1));
+        dispatcher.dispatch(triggered("feed", 2));
+        awaitTrue(() -> published.size() == 1);
+        assertEquals(List.of(1), published);
+        assertTrue(handled.isEmpty());
+
+        // 未被请求的消息在移除发布者时交还处理器
+        assertTrue(dispatcher.removePublisher("feed"));
+        assertFalse(dispatcher.removePublisher("feed"));
+        dispatcher.dispatch(triggered("feed", 3));
+        assertEquals(List.of(2, 3), handled);
+        assertEquals(List.of(1), published);
+    }
+
+    @Test
+    void lingeredBatchRunsOnHandlerExecutor() throws Exception {
+        AtomicInteger executed = new AtomicInteger();
+        Executor executor = task -> {
+            executed.incrementAndGet();
+            task.run();
+        };
+        TaskHandlerPoll handlers = new TaskHandlerPoll();
+        var delivered = new CompletableFuture<List<Message>>();
+        handlers.registerBatchHandler("batch", delivered::complete, 10, 10);
+        TaskDispatcher dispatcher = new TaskDispatcher(handlers, executor, false, 0);
+
+        dispatcher.dispatch(triggered("batch"));
+        assertEquals(1, delivered.get(5, TimeUnit.SECONDS).size());
+        // 一次执行消息入批，一次执行到期批次的交付
+        assertEquals(2, executed.get());
+    }
+
+    @Test
+    void batchHandlerTimeIsRecordedWhenTheBatchRuns() {
+        STClientMetrics metrics = new STClientMetrics();
+        TaskHandlerPoll handlers = new TaskHandlerPoll();
+        handlers.registerBatchHandler("batch", batch -> LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(20)), 2, 60_000);
+        TaskDispatcher dispatcher = new TaskDispatcher(handlers, Runnable::run, false, 0, metrics);
+
+        dispatcher.dispatch(triggered("batch"));
+        // 仅入批，处理器尚未运行
+        assertNull(metrics.snapshot().topics().get("batch"));
+
+        dispatcher.dispatch(triggered("batch"));
+        HistogramSnapshot handlerTime = metrics.snapshot().topics().get("batch").handlerTime();
+        assertEquals(2, handlerTime.count());
+        assertTrue(handlerTime.p50() >= TimeUnit.MILLISECONDS.toNanos(20));
+    }
+}
@@ -0,0 +1,66 @@
+package space.jamestang.simpletimer.client.handler;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopicTrieTest {
+
+    @Test
+    void matchesLiteralTopics() {
+        TopicTrie<String> trie = new TopicTrie<>();
+        trie.put("order.created", "literal");
+        assertEquals("literal", trie.match("order.created"));
+        assertNull(trie.match("order"));
+        assertNull(trie.match("order.created.eu"));
+    }
+
+    @Test
+    void singleWildcardMatchesExactlyOneSegment() {
+        TopicTrie<String> trie = new TopicTrie<>();
+        trie.put("order.*", "single");
+        assertEquals("single", trie.match("order.created"));
+        assertNull(trie.match("order"));
+        assertNull(trie.match("order.eu.created"));
+    }
+
+    @Test
+    void multiWildcardMatchesZeroOrMoreSegments() {
+        TopicTrie<String> trie = new TopicTrie<>();
+        trie.put("order.#", "multi");
+        assertEquals("multi", trie.match("order"));
+        assertEquals("multi", trie.match("order.created"));
+        assertEquals("multi", trie.match("order.eu.created"));
+        assertNull(trie.match("invoice.created"));
+    }
+
+    @Test
+    void mostSpecificPatternWins() {
+        TopicTrie<String> trie = new TopicTrie<>();
+        trie.put("order.#", "multi");
+        trie.put("order.*", "single");
+        trie.put("order.created", "literal");
+        assertEquals("literal", trie.match("order.created"));
+        assertEquals("single", trie.match("order.deleted"));
+        assertEquals("multi", trie.match("order.eu.deleted"));
+    }
+
+    @Test
+    void multiWildcardConsumesAsFewSegmentsAsPossible() {
+        TopicTrie<String> trie = new TopicTrie<>();
+        trie.put("#.created", "short");
+        trie.put("#.eu.created", "long");
+        assertEquals("long", trie.match("order.eu.created"));
+        assertEquals("short", trie.match("order.us.created"));
+    }
+
+    @Test
+    void removeReturnsOldValueAndPrunes() {
+        TopicTrie<String> trie = new TopicTrie<>();
+        assertNull(trie.put("order.*", "first"));
+        assertEquals("first", trie.put("order.*", "second"));
+        assertEquals("second", trie.remove("order.*"));
+        assertNull(trie.match("order.created"));
+        assertNull(trie.remove("order.*"));
+    }
+}
@@ -0,0 +1,65 @@
+package space.jamestang.simpletimer.client.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void smallValuesHaveExactBuckets() {
+        for (long value = 0; value < 16; value++) {
+            assertEquals(value, LatencyHistogram.upperBound(LatencyHistogram.indexOf(value)));
+        }
+    }
+
+    @Test
+    void bucketBoundsContainTheirValues() {
+        long[] values = {16, 17, 31, 32, 33, 1000, 1_000_000, 123_456_789, 1L << 40, Long.MAX_VALUE - 1, Long.MAX_VALUE};
+        for (long value : values) {
+            int index = LatencyHistogram.indexOf(value);
+            long upper = LatencyHistogram.upperBound(index);
+            assertTrue(upper >= value, "upper bound " + upper + " below " + value);
+            // 上一个桶的上界必须小于该值
+            assertTrue(LatencyHistogram.upperBound(index - 1) < value);
+            // 相对误差不超过1/16
+            assertTrue(upper - value <= value / 16, "bucket of " + value + " too wide: " + upper);
+        }
+    }
+
+    @Test
+    void indexesAreMonotonic() {
+        int previous = -1;
+        for (long value = 0; value < 1 << 16; value++) {
+            int index = LatencyHistogram.indexOf(value);
+            assertTrue(index == previous || index == previous + 1);
+            previous = index;
+        }
+    }
+
+    @Test
+    void snapshotReportsPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i * 1000L);
+        }
+        HistogramSnapshot snapshot = histogram.snapshot();
+        assertEquals(100, snapshot.count());
+        assertEquals(50_500, snapshot.mean(), 0.001);
+        assertEquals(100_000, snapshot.max());
+        assertEquals(50_000, snapshot.p50(), 50_000 / 16);
+        assertEquals(99_000, snapshot.p99(), 99_000 / 16);
+        assertEquals(100_000, snapshot.p999());
+    }
+
+    @Test
+    void snapshotAndResetClears() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(7);
+        HistogramSnapshot snapshot = histogram.snapshotAndReset();
+        assertEquals(2, snapshot.count());
+        assertEquals(7, snapshot.max());
+        assertSame(HistogramSnapshot.EMPTY, histogram.snapshot());
+    }
+}
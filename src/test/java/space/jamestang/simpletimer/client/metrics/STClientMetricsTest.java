@@ -0,0 +1,33 @@
+package space.jamestang.simpletimer.client.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class STClientMetricsTest {
+
+    @Test
+    void aggregatesTopicsBeyondTheCap() {
+        STClientMetrics metrics = new STClientMetrics();
+        for (int i = 0; i < STClientMetrics.MAX_TOPICS + 10; i++) {
+            metrics.triggered("order." + i);
+        }
+        var topics = metrics.snapshot().topics();
+        assertEquals(STClientMetrics.MAX_TOPICS + 1, topics.size());
+        assertEquals(10, topics.get(STClientMetrics.OTHER_TOPICS).triggered());
+    }
+
+    @Test
+    void resetDropsIdleTopics() {
+        STClientMetrics metrics = new STClientMetrics();
+        metrics.triggered("idle");
+        metrics.triggered("busy");
+        assertEquals(2, metrics.snapshotAndReset().topics().size());
+
+        metrics.handled("busy", System.nanoTime(), true);
+        var topics = metrics.snapshotAndReset().topics();
+        assertEquals(1, topics.size());
+        assertEquals(1, topics.get("busy").handlerTime().count());
+        assertTrue(metrics.snapshotAndReset().topics().isEmpty());
+    }
+}
@@ -0,0 +1,80 @@
+package space.jamestang.simpletimer.client.network;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+import space.jamestang.simpletimer.client.compression.DeflateCodec;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressionHandlerTest {
+
+    @Test
+    void compressesLargePayloadsAndRestoresThem() {
+        byte[] payload = new byte[4096];
+        Arrays.fill(payload, (byte) 'a');
+        Message compressed = roundTripOutbound(Message.createSchedule("topic", 1000, payload).withRequestId(9));
+
+        assertEquals(MessageType.SCHEDULE_TASK | MessageType.COMPRESSED, compressed.type());
+        assertTrue(compressed.payloadLength() < payload.length);
+        assertEquals(9, compressed.requestId());
+
+        for (boolean zeroCopy : new boolean[]{false, true}) {
+            EmbeddedChannel inbound = new EmbeddedChannel(new CompressionHandler(new DeflateCodec(), 64, zeroCopy));
+            inbound.writeInbound(compressed.retain());
+            Message restored = inbound.readInbound();
+            assertEquals(MessageType.SCHEDULE_TASK, restored.type());
+            assertEquals("topic", restored.topic());
+            assertEquals(9, restored.requestId());
+            assertArrayEquals(payload, bytes(restored));
+            restored.release();
+            inbound.finishAndReleaseAll();
+        }
+        compressed.release();
+    }
+
+    @Test
+    void leavesSmallPayloadsUncompressed() {
+        Message message = roundTripOutbound(Message.createSchedule("topic", 1000, new byte[32]));
+        assertEquals(MessageType.SCHEDULE_TASK, message.type());
+        assertEquals(32, message.payloadLength());
+    }
+
+    @Test
+    void leavesIncompressiblePayloadsUncompressed() {
+        byte[] payload = new byte[4096];
+        new Random(42).nextBytes(payload);
+        Message message = roundTripOutbound(Message.createSchedule("topic", 1000, payload));
+        assertEquals(MessageType.SCHEDULE_TASK, message.type());
+        assertArrayEquals(payload, message.payload());
+    }
+
+    @Test
+    void dropsCorruptPayloads() {
+        EmbeddedChannel channel = new EmbeddedChannel(new CompressionHandler(new DeflateCodec(), 64, false));
+        byte[] corrupt = {0, 0, 0, 16, 1, 2, 3, 4};
+        channel.writeInbound(new Message(0x7355608, 1, MessageType.TASK_TRIGGERED | MessageType.COMPRESSED,
+                5, "topic", 0, corrupt));
+        assertNull(channel.readInbound());
+        channel.finishAndReleaseAll();
+    }
+
+    private static Message roundTripOutbound(Message message) {
+        EmbeddedChannel channel = new EmbeddedChannel(new CompressionHandler(new DeflateCodec(), 64, false));
+        channel.writeOutbound(message);
+        Message written = channel.readOutbound();
+        assertFalse(channel.finish());
+        return written;
+    }
+
+    private static byte[] bytes(Message message) {
+        if (!message.isZeroCopy()) {
+            return message.payload();
+        }
+        byte[] bytes = new byte[message.payloadLength()];
+        message.content().getBytes(message.content().readerIndex(), bytes);
+        return bytes;
+    }
+}
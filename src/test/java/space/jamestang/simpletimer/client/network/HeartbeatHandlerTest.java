@@ -0,0 +1,139 @@
+package space.jamestang.simpletimer.client.network;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.timeout.IdleStateEvent;
+import org.junit.jupiter.api.Test;
+import space.jamestang.simpletimer.client.handler.TaskDispatcher;
+import space.jamestang.simpletimer.client.handler.TaskHandlerPoll;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HeartbeatHandlerTest {
+
+    private static EmbeddedChannel channel(long timeout, TimeUnit unit, boolean closeOnMissedPong) {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        channel.pipeline().addLast(new HeartbeatHandler(timeout, unit, closeOnMissedPong));
+        return channel;
+    }
+
+    private static void idle(EmbeddedChannel channel) {
+        channel.pipeline().fireUserEventTriggered(IdleStateEvent.READER_IDLE_STATE_EVENT);
+        channel.runPendingTasks();
+    }
+
+    private static boolean pingWritten(EmbeddedChannel channel) {
+        ByteBuf frame = channel.readOutbound();
+        if (frame == null) {
+            return false;
+        }
+        frame.release();
+        return true;
+    }
+
+    @Test
+    void pingsWhenIdle() {
+        EmbeddedChannel channel = channel(1, TimeUnit.HOURS, false);
+        idle(channel);
+        assertTrue(pingWritten(channel));
+        assertTrue(channel.isOpen());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void closesAfterReadTimeout() {
+        EmbeddedChannel channel = channel(1, TimeUnit.NANOSECONDS, false);
+        idle(channel);
+        assertFalse(channel.isOpen());
+        assertFalse(pingWritten(channel));
+    }
+
+    @Test
+    void readResetsTimeout() {
+        EmbeddedChannel channel = channel(1, TimeUnit.HOURS, false);
+        channel.writeInbound("frame");
+        assertEquals("frame", channel.readInbound());
+        idle(channel);
+        assertTrue(channel.isOpen());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void closesOnMissedPongWhenRequested() {
+        EmbeddedChannel channel = channel(1, TimeUnit.HOURS, true);
+        idle(channel);
+        assertTrue(pingWritten(channel));
+        idle(channel);
+        assertFalse(channel.isOpen());
+    }
+
+    @Test
+    void answeredPingKeepsChannelOpen() {
+        EmbeddedChannel channel = channel(1, TimeUnit.HOURS, true);
+        idle(channel);
+        assertTrue(pingWritten(channel));
+        assertTrue(channel.pipeline().get(HeartbeatHandler.class).pongReceived() >= 0);
+        idle(channel);
+        assertTrue(channel.isOpen());
+        assertTrue(pingWritten(channel));
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void pongReportsRoundTripOnce() {
+        EmbeddedChannel channel = channel(1, TimeUnit.HOURS, false);
+        HeartbeatHandler heartbeat = channel.pipeline().get(HeartbeatHandler.class);
+        AtomicLong reported = new AtomicLong(-1);
+        heartbeat.rttListener(reported::set);
+        assertEquals(-1, heartbeat.pongReceived());
+
+        idle(channel);
+        assertTrue(pingWritten(channel));
+        long rtt = heartbeat.pongReceived();
+        assertTrue(rtt >= 0);
+        assertEquals(rtt, reported.get());
+        // 同一个PING只计量一次
+        assertEquals(-1, heartbeat.pongReceived());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void pausedPublisherKeepsChannelOpen() {
+        EmbeddedChannel channel = channel(1, TimeUnit.NANOSECONDS, true);
+        TaskDispatcher dispatcher = new TaskDispatcher(new TaskHandlerPoll(), Runnable::run, false, 0);
+        // 与 STClient 一样，发布者缓冲满时关闭 autoRead
+        dispatcher.publisher("slow", 2, paused -> channel.config().setAutoRead(!paused));
+        dispatcher.dispatch(Message.createSchedule("slow", 1000, new byte[1]));
+        dispatcher.dispatch(Message.createSchedule("slow", 1000, new byte[1]));
+        assertFalse(channel.config().isAutoRead());
+
+        for (int i = 0; i < 5; i++) {
+            idle(channel);
+        }
+        assertTrue(channel.isOpen());
+        assertFalse(pingWritten(channel));
+
+        dispatcher.removePublisher("slow");
+        dispatcher.shutdown();
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void pauseForgetsOutstandingPing() {
+        EmbeddedChannel channel = channel(1, TimeUnit.HOURS, true);
+        idle(channel);
+        assertTrue(pingWritten(channel));
+
+        channel.config().setAutoRead(false);
+        idle(channel);
+        channel.config().setAutoRead(true);
+
+        idle(channel);
+        assertTrue(channel.isOpen());
+        assertTrue(pingWritten(channel));
+        channel.finishAndReleaseAll();
+    }
+}
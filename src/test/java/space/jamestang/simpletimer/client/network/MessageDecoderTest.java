@@ -0,0 +1,66 @@
+package space.jamestang.simpletimer.client.network;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+import space.jamestang.simpletimer.client.handler.TaskHandlerPoll;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageDecoderTest {
+
+    private static final byte[] PAYLOAD = {1, 2, 3, 4, 5};
+
+    /**
+     * @return a TASK_TRIGGERED frame without its length prefix, as passed on by the frame decoder
+     */
+    private static ByteBuf triggeredFrame() {
+        Message triggered = new Message(0x7355608, 1, MessageType.TASK_TRIGGERED, 5, "order", 1000, PAYLOAD);
+        return MessageEncoder.encodeFrame(PooledByteBufAllocator.DEFAULT, triggered).skipBytes(4);
+    }
+
+    @Test
+    void zeroCopyPayloadIsReleasedAfterTheHandler() {
+        EmbeddedChannel channel = new EmbeddedChannel(new MessageDecoder(true));
+        ByteBuf frame = triggeredFrame();
+        channel.writeInbound(frame);
+        Message message = channel.readInbound();
+
+        assertTrue(message.isZeroCopy());
+        // 解码器释放了帧，仅剩载荷切片持有的引用
+        assertEquals(1, frame.refCnt());
+        assertEquals("order", message.topic());
+        assertEquals(PAYLOAD.length, message.payloadLength());
+
+        AtomicReference<byte[]> seen = new AtomicReference<>();
+        TaskHandlerPoll handlers = new TaskHandlerPoll();
+        handlers.registerHandler("order", msg -> {
+            byte[] copy = msg.payload();
+            copy[0] = 42;
+            // payload() 返回副本，修改不影响帧内容
+            seen.set(msg.payload());
+        });
+        handlers.handle(message);
+
+        assertArrayEquals(PAYLOAD, seen.get());
+        assertEquals(0, message.refCnt());
+        assertEquals(0, frame.refCnt());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    void copyingDecoderReleasesTheFrameRightAway() {
+        EmbeddedChannel channel = new EmbeddedChannel(new MessageDecoder(false));
+        ByteBuf frame = triggeredFrame();
+        channel.writeInbound(frame);
+        Message message = channel.readInbound();
+
+        assertFalse(message.isZeroCopy());
+        assertEquals(0, frame.refCnt());
+        assertArrayEquals(PAYLOAD, message.payload());
+        assertFalse(channel.finish());
+    }
+}
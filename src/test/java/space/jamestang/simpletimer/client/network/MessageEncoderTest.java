@@ -0,0 +1,77 @@
+package space.jamestang.simpletimer.client.network;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageEncoderTest {
+
+    private static EmbeddedChannel channel(int version) {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        ProtocolSession.attach(channel);
+        if (version == ProtocolSession.V2) {
+            ProtocolSession.of(channel).negotiated(ProtocolSession.V2);
+        }
+        channel.pipeline().addLast(new MessageEncoder());
+        return channel;
+    }
+
+    /**
+     * Writes a message and checks the length prefix of the single frame it was encoded to.
+     * @return the unused capacity of the buffer allocated for the frame
+     */
+    private static int encode(EmbeddedChannel channel, Message msg) {
+        assertTrue(channel.writeOutbound(msg));
+        ByteBuf out = channel.readOutbound();
+        try {
+            int slack = out.capacity() - out.readableBytes();
+            // 注册帧与消息帧写入同一个缓冲区，逐帧校验长度前缀
+            while (out.isReadable()) {
+                int length = out.readInt();
+                assertTrue(length <= out.readableBytes());
+                out.skipBytes(length);
+            }
+            return slack;
+        } finally {
+            out.release();
+        }
+    }
+
+    @Test
+    void v1FrameFillsItsBufferExactly() {
+        EmbeddedChannel channel = channel(ProtocolSession.V1);
+        assertEquals(0, encode(channel, Message.createSchedule("order", 1000, new byte[100])));
+        assertEquals(0, encode(channel, Message.createSchedule("订单", 1000, Unpooled.wrappedBuffer(new byte[7]))));
+        assertEquals(0, encode(channel, Message.createPING("ping")));
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    void v2FrameFillsItsBufferExactlyOnceTheTopicIsRegistered() {
+        EmbeddedChannel channel = channel(ProtocolSession.V2);
+        // 首次使用时按最长的topic ID预留，最多多出4字节
+        int firstUse = encode(channel, Message.createSchedule("order", 1000, new byte[100]).withRequestId(300));
+        assertTrue(firstUse >= 0 && firstUse <= 4, "unused capacity " + firstUse);
+
+        assertEquals(0, encode(channel, Message.createSchedule("order", 1_000_000, new byte[100]).withRequestId(1L << 40)));
+        assertEquals(0, encode(channel, Message.createSchedule("order", 1000, Unpooled.wrappedBuffer(new byte[3]))));
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    void encodeFrameSizesTheBufferToTheFrame() {
+        Message msg = Message.createSchedule("t", 1000, new byte[9]);
+        ByteBuf frame = MessageEncoder.encodeFrame(UnpooledByteBufAllocator.DEFAULT, msg);
+        try {
+            assertEquals(frame.capacity(), frame.readableBytes());
+            assertEquals(4 + MessageEncoder.frameLength(msg), frame.readableBytes());
+            assertEquals(frame.readableBytes() - 4, frame.getInt(0));
+        } finally {
+            frame.release();
+        }
+    }
+}
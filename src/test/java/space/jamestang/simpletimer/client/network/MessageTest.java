@@ -0,0 +1,66 @@
+package space.jamestang.simpletimer.client.network;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageTest {
+
+    @Test
+    void batchPacksHeapAndZeroCopyTasks() {
+        List<Message> tasks = List.of(
+                Message.createSchedule("a", 1000, new byte[]{1, 2}),
+                Message.createSchedule("bb", 2000, Unpooled.wrappedBuffer(new byte[]{3})));
+        Message pooled = Message.createBatchSchedule(PooledByteBufAllocator.DEFAULT, tasks);
+        ByteBuffer expected = ByteBuffer.allocate(4 + (4 + 1 + 8 + 4 + 2) + (4 + 2 + 8 + 4 + 1))
+                .putInt(2)
+                .putInt(1).put((byte) 'a').putLong(1000).putInt(2).put(new byte[]{1, 2})
+                .putInt(2).put(new byte[]{'b', 'b'}).putLong(2000).putInt(1).put((byte) 3);
+        try {
+            assertEquals(MessageType.BATCH_SCHEDULE_TASK, pooled.type());
+            assertTrue(pooled.isZeroCopy());
+            assertArrayEquals(expected.array(), pooled.payload());
+            // 任务本身不被批量消息释放
+            assertEquals(1, tasks.get(1).content().refCnt());
+        } finally {
+            pooled.release();
+            tasks.get(1).release();
+        }
+    }
+
+    @Test
+    void batchSizeLimitCoversTheWholeFrame() {
+        // 每个任务的 topic、delay 和两个长度字段共 4 + 1 + 8 + 4 字节
+        int overhead = 4 + (4 + 1 + 8 + 4);
+        int fitsPayloadOnly = STClientChannelInitializer.MAX_FRAME_LENGTH - overhead;
+        List<Message> tooLarge = List.of(Message.createSchedule("t", 1000, new byte[fitsPayloadOnly]));
+        assertThrows(IllegalArgumentException.class,
+                () -> Message.createBatchSchedule(UnpooledByteBufAllocator.DEFAULT, tooLarge));
+
+        int fitsFrame = fitsPayloadOnly - 4 - MessageEncoder.HEADER_LENGTH;
+        Message batch = Message.createBatchSchedule(UnpooledByteBufAllocator.DEFAULT,
+                List.of(Message.createSchedule("t", 1000, new byte[fitsFrame])));
+        ByteBuf frame = MessageEncoder.encodeFrame(UnpooledByteBufAllocator.DEFAULT, batch);
+        try {
+            assertEquals(STClientChannelInitializer.MAX_FRAME_LENGTH, frame.readableBytes());
+        } finally {
+            frame.release();
+            batch.release();
+        }
+    }
+
+    @Test
+    void rejectsEmptyAndNonScheduleBatches() {
+        assertThrows(IllegalArgumentException.class,
+                () -> Message.createBatchSchedule(UnpooledByteBufAllocator.DEFAULT, List.of()));
+        assertThrows(IllegalArgumentException.class,
+                () -> Message.createBatchSchedule(UnpooledByteBufAllocator.DEFAULT, List.of(Message.createPING("ping"))));
+    }
+}
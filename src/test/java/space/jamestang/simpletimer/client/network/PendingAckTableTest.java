@@ -0,0 +1,68 @@
+package space.jamestang.simpletimer.client.network;
+
+import io.netty.util.HashedWheelTimer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import space.jamestang.simpletimer.client.ScheduleReceipt;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PendingAckTableTest {
+
+    private final HashedWheelTimer timer = new HashedWheelTimer(10, TimeUnit.MILLISECONDS);
+
+    @AfterEach
+    void tearDown() {
+        timer.stop();
+    }
+
+    @Test
+    void requestIdsAreNeverZero() {
+        PendingAckTable table = new PendingAckTable(timer, 60_000);
+        long first = table.nextRequestId();
+        assertNotEquals(0, first);
+        assertNotEquals(first, table.nextRequestId());
+    }
+
+    @Test
+    void completesWithReceipt() throws Exception {
+        PendingAckTable table = new PendingAckTable(timer, 60_000);
+        long requestId = table.nextRequestId();
+        CompletableFuture<ScheduleReceipt> ack = table.register(requestId, "orders");
+
+        assertTrue(table.complete(requestId));
+        ScheduleReceipt receipt = ack.get();
+        assertEquals(requestId, receipt.requestId());
+        assertEquals("orders", receipt.topic());
+        assertEquals(0, table.size());
+        // 重复的确认被忽略
+        assertFalse(table.complete(requestId));
+    }
+
+    @Test
+    void failsOnTimeout() {
+        PendingAckTable table = new PendingAckTable(timer, 50);
+        CompletableFuture<ScheduleReceipt> ack = table.register(table.nextRequestId(), "orders");
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> ack.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, e.getCause());
+        assertEquals(0, table.size());
+    }
+
+    @Test
+    void failAllFailsEveryPendingSchedule() {
+        PendingAckTable table = new PendingAckTable(timer, 60_000);
+        CompletableFuture<ScheduleReceipt> a = table.register(table.nextRequestId(), "a");
+        CompletableFuture<ScheduleReceipt> b = table.register(table.nextRequestId(), "b");
+
+        table.failAll(new IllegalStateException("shutdown"));
+        assertTrue(a.isCompletedExceptionally());
+        assertTrue(b.isCompletedExceptionally());
+        assertEquals(0, table.size());
+    }
+}
@@ -0,0 +1,78 @@
+package space.jamestang.simpletimer.client.network;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProtocolSessionTest {
+
+    @Test
+    void clientAssignsOddIds() {
+        ProtocolSession session = new ProtocolSession();
+        assertEquals(1, session.register("a"));
+        assertEquals(3, session.register("b"));
+        assertEquals(5, session.register("c"));
+        assertEquals(3, session.topicId("b"));
+        assertEquals("c", session.topic(5));
+    }
+
+    @Test
+    void emptyTopicIsIdZero() {
+        ProtocolSession session = new ProtocolSession();
+        assertEquals(0, session.topicId(""));
+        assertEquals("", session.topic(0));
+        assertEquals(-1, session.topicId("unknown"));
+        assertNull(session.topic(7));
+    }
+
+    @Test
+    void serverRegistrationUsesEvenIds() {
+        ProtocolSession session = new ProtocolSession();
+        assertTrue(session.registered(2, "server-topic"));
+        assertEquals("server-topic", session.topic(2));
+        assertEquals(2, session.topicId("server-topic"));
+    }
+
+    @Test
+    void concurrentRegistrationsDoNotCollide() {
+        ProtocolSession session = new ProtocolSession();
+        int clientId = session.register("client-topic");
+        // 服务端同时注册了另一个topic
+        assertTrue(session.registered(2, "server-topic"));
+        assertNotEquals(clientId, 2);
+        assertEquals("client-topic", session.topic(clientId));
+        assertEquals("server-topic", session.topic(2));
+    }
+
+    @Test
+    void rejectsServerRegistrationInClientSpace() {
+        ProtocolSession session = new ProtocolSession();
+        int clientId = session.register("client-topic");
+        assertFalse(session.registered(clientId, "other"));
+        assertFalse(session.registered(0, "other"));
+        assertFalse(session.registered(-2, "other"));
+        assertEquals("client-topic", session.topic(clientId));
+        assertEquals(-1, session.topicId("other"));
+    }
+
+    @Test
+    void rejectsRebindingServerId() {
+        ProtocolSession session = new ProtocolSession();
+        assertTrue(session.registered(4, "first"));
+        assertFalse(session.registered(4, "second"));
+        assertEquals("first", session.topic(4));
+        assertEquals(-1, session.topicId("second"));
+        // 重复注册同一个topic是幂等的
+        assertTrue(session.registered(4, "first"));
+    }
+
+    @Test
+    void clientKeepsItsOwnIdForOutboundFrames() {
+        ProtocolSession session = new ProtocolSession();
+        int clientId = session.register("shared");
+        assertTrue(session.registered(6, "shared"));
+        assertEquals(clientId, session.topicId("shared"));
+        assertEquals("shared", session.topic(6));
+        assertEquals("shared", session.topic(clientId));
+    }
+}
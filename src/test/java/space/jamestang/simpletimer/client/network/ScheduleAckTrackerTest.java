@@ -0,0 +1,148 @@
+package space.jamestang.simpletimer.client.network;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.HashedWheelTimer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import space.jamestang.simpletimer.client.ScheduleReceipt;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScheduleAckTrackerTest {
+
+    private HashedWheelTimer timer;
+    private PendingAckTable ackTable;
+    private ScheduleAckTracker tracker;
+    private EmbeddedChannel channel;
+
+    @BeforeEach
+    void setUp() {
+        timer = new HashedWheelTimer();
+        ackTable = new PendingAckTable(timer, 60_000);
+        tracker = new ScheduleAckTracker(ackTable);
+        // 丢弃写出的消息，无需编码器
+        channel = new EmbeddedChannel(new ChannelOutboundHandlerAdapter() {
+            @Override
+            public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+                promise.setSuccess();
+            }
+        }, tracker);
+    }
+
+    @AfterEach
+    void tearDown() {
+        channel.finishAndReleaseAll();
+        timer.stop();
+    }
+
+    @Test
+    void acknowledgesInWriteOrder() {
+        Scheduled first = schedule("a");
+        Scheduled second = schedule("a");
+
+        received("a", 0);
+        assertTrue(first.isDone());
+        assertFalse(second.isDone());
+        received("a", 0);
+        assertTrue(second.isDone());
+        assertEquals(0, tracker.inFlight());
+    }
+
+    @Test
+    void creditsAckToOldestScheduleOfItsTopic() {
+        Scheduled a = schedule("a");
+        Scheduled b = schedule("b");
+
+        received("b", 0);
+        assertTrue(b.succeeded());
+        // 服务端确认了更晚写出的任务，更早的任务已被丢弃
+        ExecutionException e = assertThrows(ExecutionException.class, a.ack()::get);
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        assertEquals(0, tracker.inFlight());
+        assertEquals(0, ackTable.size());
+    }
+
+    @Test
+    void ignoresAckWithoutMatchingTopic() {
+        Scheduled a = schedule("a");
+
+        received("other", 0);
+        assertFalse(a.isDone());
+        assertEquals(1, tracker.inFlight());
+    }
+
+    @Test
+    void explicitAckKeepsPendingEntries() {
+        Scheduled a = schedule("a");
+        Scheduled b = schedule("b");
+
+        received("b", b.requestId());
+        assertTrue(b.isDone());
+        assertFalse(a.isDone());
+        assertEquals(1, tracker.inFlight());
+
+        received("a", 0);
+        assertTrue(a.succeeded());
+    }
+
+    @Test
+    void expandsBatchIntoOneEntryPerTask() {
+        channel.writeOutbound(Message.createBatchSchedule(UnpooledByteBufAllocator.DEFAULT, List.of(
+                Message.createSchedule("x", 1000, new byte[]{1}),
+                Message.createSchedule("y", 1000, new byte[]{2, 3}))));
+        assertEquals(2, tracker.inFlight());
+
+        received("x", 0);
+        received("y", 0);
+        assertEquals(0, tracker.inFlight());
+    }
+
+    @Test
+    void expectsPreEncodedFrames() {
+        long requestId = ackTable.nextRequestId();
+        CompletableFuture<ScheduleReceipt> ack = ackTable.register(requestId, "frame");
+        ByteBuf frame = MessageEncoder.encodeFrame(UnpooledByteBufAllocator.DEFAULT,
+                Message.createSchedule("frame", 1000, new byte[]{4}));
+        int readerIndex = frame.readerIndex();
+        tracker.expect(frame, requestId);
+        assertEquals(readerIndex, frame.readerIndex());
+        frame.release();
+
+        received("frame", 0);
+        assertTrue(ack.isDone() && !ack.isCompletedExceptionally());
+    }
+
+    private Scheduled schedule(String topic) {
+        long requestId = ackTable.nextRequestId();
+        CompletableFuture<ScheduleReceipt> ack = ackTable.register(requestId, topic);
+        channel.writeOutbound(Message.createSchedule(topic, 1000, new byte[]{1}).withRequestId(requestId));
+        return new Scheduled(requestId, ack);
+    }
+
+    private void received(String topic, long requestId) {
+        Message ack = new Message(0x7355608, 1, MessageType.TASK_RECEIVED, topic.length(), topic, 0, new byte[0])
+                .withRequestId(requestId);
+        channel.writeInbound(ack);
+        channel.readInbound();
+    }
+
+    private record Scheduled(long requestId, CompletableFuture<ScheduleReceipt> ack) {
+        boolean isDone() {
+            return ack.isDone();
+        }
+
+        boolean succeeded() {
+            return ack.isDone() && !ack.isCompletedExceptionally();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package space.jamestang.simpletimer.client.network;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.CorruptedFrameException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VarintsTest {
+
+    private static final int[] INTS = {0, 1, 127, 128, 255, 300, 16383, 16384, 1 << 21, Integer.MAX_VALUE, -1, Integer.MIN_VALUE};
+    private static final long[] LONGS = {0, 1, 127, 128, 1L << 35, 1L << 56, Long.MAX_VALUE, -1, Long.MIN_VALUE};
+
+    @Test
+    void varIntRoundTrip() {
+        ByteBuf buf = Unpooled.buffer();
+        try {
+            for (int value : INTS) {
+                buf.clear();
+                Varints.writeVarInt(buf, value);
+                assertEquals(Varints.varIntSize(value), buf.readableBytes(), "size of " + value);
+                assertEquals(value, Varints.readVarInt(buf));
+                assertFalse(buf.isReadable());
+            }
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Test
+    void varLongRoundTrip() {
+        ByteBuf buf = Unpooled.buffer();
+        try {
+            for (long value : LONGS) {
+                buf.clear();
+                Varints.writeVarLong(buf, value);
+                assertEquals(Varints.varLongSize(value), buf.readableBytes(), "size of " + value);
+                assertEquals(value, Varints.readVarLong(buf));
+                assertFalse(buf.isReadable());
+            }
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Test
+    void encodedSizes() {
+        assertEquals(1, Varints.varIntSize(0));
+        assertEquals(1, Varints.varIntSize(127));
+        assertEquals(2, Varints.varIntSize(128));
+        assertEquals(5, Varints.varIntSize(-1));
+        assertEquals(10, Varints.varLongSize(-1L));
+    }
+
+    @Test
+    void rejectsOverlongVarInt() {
+        ByteBuf buf = Unpooled.wrappedBuffer(new byte[]{(byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x01});
+        try {
+            assertThrows(CorruptedFrameException.class, () -> Varints.readVarInt(buf));
+        } finally {
+            buf.release();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package space.jamestang.simpletimer.client.network;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.DefaultEventLoop;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.local.LocalChannel;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteCoalescerTest {
+
+    @Test
+    void flushesOncePerBatch() {
+        FlushCounter flushes = new FlushCounter();
+        EmbeddedChannel channel = new EmbeddedChannel(flushes);
+        WriteCoalescer coalescer = new WriteCoalescer(channel, 3, 0);
+
+        List<ChannelFuture> futures = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            futures.add(coalescer.write("msg-" + i));
+        }
+        assertNull(channel.readOutbound());
+        channel.runPendingTasks();
+
+        for (int i = 0; i < 7; i++) {
+            assertEquals("msg-" + i, channel.readOutbound());
+            assertTrue(futures.get(i).isSuccess());
+        }
+        // 7条消息按每批3条分3次刷出
+        assertEquals(3, flushes.count);
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void delayedDrainWaitsForMoreWrites() {
+        FlushCounter flushes = new FlushCounter();
+        EmbeddedChannel channel = new EmbeddedChannel(flushes);
+        channel.freezeTime();
+        WriteCoalescer coalescer = new WriteCoalescer(channel, 16, 500);
+
+        ChannelFuture first = coalescer.write("first");
+        channel.runPendingTasks();
+        assertFalse(first.isDone());
+        ChannelFuture second = coalescer.write("second");
+
+        channel.advanceTimeBy(500, TimeUnit.MICROSECONDS);
+        channel.runScheduledPendingTasks();
+        assertTrue(first.isSuccess() && second.isSuccess());
+        assertEquals(1, flushes.count);
+        assertEquals("first", channel.readOutbound());
+        assertEquals("second", channel.readOutbound());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void releasesWritesRejectedByTheEventLoop() throws Exception {
+        DefaultEventLoop loop = new DefaultEventLoop();
+        LocalChannel channel = new LocalChannel();
+        loop.register(channel).sync();
+        loop.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).sync();
+
+        ByteBuf msg = Unpooled.buffer().writeInt(1);
+        ChannelFuture future = new WriteCoalescer(channel, 16, 0).write(msg);
+        assertInstanceOf(RejectedExecutionException.class, future.cause());
+        assertEquals(0, msg.refCnt());
+    }
+
+    private static final class FlushCounter extends ChannelOutboundHandlerAdapter {
+        int count;
+
+        @Override
+        public void flush(ChannelHandlerContext ctx) {
+            count++;
+            ctx.flush();
+        }
+    }
+}